@@ -279,6 +279,7 @@ public class AlgFCCGUI extends JFrame {
 			case "Lagrangian Relaxation":
 			case "Stochastic (IRS)":
 			case "Stochastic Compact (IRSC)":
+			case "Stochastic Aggregate (IRSA)":
 				panel = panelMap.get("stochastic");
 				break;
 			case "Deterministic (IRD)":
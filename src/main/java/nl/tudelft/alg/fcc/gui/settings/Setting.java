@@ -77,9 +77,9 @@ public class Setting {
 
 			//MODEL
 			new ComboSetting("solution model", "model",
-					new String[] { "Direct", "Imbalance Charging", "Stochastic (IRS)", "Stochastic Compact (IRSC)",
+					new String[] { "Direct", "Imbalance Charging", "Stochastic (IRS)", "Stochastic Compact (IRSC)", "Stochastic Aggregate (IRSA)",
 							"Deterministic (IRD)", "Piecewise Linear", "EFEL", "Lagrangian Relaxation", "Solution From File"},
-					new String[] { "D", "IM", "IRS", "IRSC", "IRD", "NM", "EFEL", "LR", "File" }),
+					new String[] { "D", "IM", "IRS", "IRSC", "IRSA", "IRD", "NM", "EFEL", "LR", "File" }),
 			new NumberSetting("shortage penalty", "model", 0, 1000, 10),
 			new NumberSetting("robustness", "model", 0, 1, 0.1),
 			new BinarySetting("V2G", "model"),
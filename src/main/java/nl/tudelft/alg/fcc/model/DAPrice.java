@@ -14,8 +14,8 @@ public class DAPrice {
 		prices = new HashMap<Calendar, Double>();
 	}
 	
-	public void addDatePricePair(String d, double p) {
-		addDatePricePair(Utils.stringToCalender(d), p);
+	public void addDatePricePair(String d, String format, double p) {
+		addDatePricePair(Utils.stringToCalender(d, format), p);
 	}
 	
 	public void addDatePricePair(Calendar d, double p) {
@@ -28,8 +28,8 @@ public class DAPrice {
 		return prices.get(cal);
 	}
 	
-	public double getPrice(String d) {
-		return getPrice(Utils.stringToCalender(d));
+	public double getPrice(String d, String format) {
+		return getPrice(Utils.stringToCalender(d, format));
 	}
 	
 	public int getNTimeSteps() {
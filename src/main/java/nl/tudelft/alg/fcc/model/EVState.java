@@ -7,6 +7,8 @@ import java.util.Map;
 import nl.tudelft.alg.fcc.utils.Utils;
 
 public class EVState extends Battery {
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss"; //the format of the arrival and departure times
+
 	/**
 	 * the arrival time expressed in minutes since the start of the experiment
 	 */
@@ -41,7 +43,7 @@ public class EVState extends Battery {
 	}
 
 	private static int timeToPTU(String date, Calendar startdate, int ptu) {
-		Calendar d = Utils.stringToCalender(date);
+		Calendar d = Utils.stringToCalender(date, DATE_FORMAT);
 		return ((int) ChronoUnit.MINUTES.between(startdate.toInstant(), d.toInstant())) / ptu;
 	}
 
@@ -17,6 +17,13 @@ public class Line {
 		lb = Double.parseDouble(raw[3]);
 		rb = Double.parseDouble(raw[4]);
 	}
+
+	public Line(double r, double b, double lb, double rb) {
+		this.r = r;
+		this.b = b;
+		this.lb = lb;
+		this.rb = rb;
+	}
 	
 	public static Line[] newLines(String[] raw) {
 		int n = (raw.length-1)/4;
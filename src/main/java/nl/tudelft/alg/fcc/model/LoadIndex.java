@@ -0,0 +1,75 @@
+package nl.tudelft.alg.fcc.model;
+
+/**
+ * Precomputed availability and charging speeds of all loads for the time steps of one problem.
+ * The index contains, for every time step (relative to the startT of the problem):
+ * 1) a bitset of the available loads
+ * 2) the charging speed of every load
+ * 3) the number of available loads and their summed charging speed
+ * The index only depends on the charging sessions and the charging speeds of the loads, not on their state of charge
+ */
+class LoadIndex {
+	final int startT, nTimeSteps, nLoads;
+	private final int words;
+	private final long[] available; //bitset of the available loads, per time step
+	private final double[] speed; //the charging speed of every load, per time step
+	private final int[] nAvailable;
+	private final double[] speedSum;
+
+	/**
+	 * Create an index of the loads for the time steps [startT, startT+nTimeSteps)
+	 * @param loads the loads
+	 * @param startT the absolute start time step of the problem
+	 * @param nTimeSteps the number of time steps of the problem
+	 */
+	LoadIndex(FlexibleLoad[] loads, int startT, int nTimeSteps) {
+		this.startT = startT;
+		this.nTimeSteps = Math.max(0, nTimeSteps);
+		this.nLoads = loads.length;
+		this.words = (nLoads + 63) / 64;
+		this.available = new long[this.nTimeSteps * words];
+		this.speed = new double[this.nTimeSteps * nLoads];
+		this.nAvailable = new int[this.nTimeSteps];
+		this.speedSum = new double[this.nTimeSteps];
+		for (int t = 0; t < this.nTimeSteps; t++) {
+			for (int i = 0; i < nLoads; i++) {
+				double s = loads[i].getChargingSpeed(startT + t);
+				speed[t * nLoads + i] = s;
+				if (!loads[i].isAvailable(startT + t)) continue;
+				available[t * words + (i >>> 6)] |= 1L << i;
+				nAvailable[t]++;
+				speedSum[t] += s;
+			}
+		}
+	}
+
+	/**
+	 * @return true iff this index is built for the given problem time steps
+	 */
+	boolean isValid(int startT, int nTimeSteps, int nLoads) {
+		return this.startT == startT && this.nTimeSteps == Math.max(0, nTimeSteps) && this.nLoads == nLoads;
+	}
+
+	/**
+	 * @return true iff time step t (relative to startT) is in this index
+	 */
+	boolean contains(int t) {
+		return t >= 0 && t < nTimeSteps;
+	}
+
+	boolean isAvailable(int i, int t) {
+		return (available[t * words + (i >>> 6)] & (1L << i)) != 0;
+	}
+
+	double getChargingSpeed(int i, int t) {
+		return speed[t * nLoads + i];
+	}
+
+	int getNAvailable(int t) {
+		return nAvailable[t];
+	}
+
+	double getSummedChargingSpeed(int t) {
+		return speedSum[t];
+	}
+}
@@ -13,6 +13,7 @@ public class Loads {
 	protected FlexibleLoadProblem problem;
 	protected int nLoads;
 	protected Grid grid;
+	private volatile LoadIndex index; //the availability and charging speeds per time step, built on first use
 	
 	public Loads(FlexibleLoad[] loads, Grid grid) {
 		this.loads = loads;
@@ -22,6 +23,28 @@ public class Loads {
 	
 	public void setProblem(FlexibleLoadProblem problem) {
 		this.problem = problem;
+		invalidateIndex();
+	}
+
+	/**
+	 * Get the index of the availability and charging speeds of the loads for the time steps of the problem.
+	 * The index is rebuilt when the startT or the number of time steps of the problem changed
+	 */
+	LoadIndex getIndex() {
+		LoadIndex index = this.index;
+		if (index == null || !index.isValid(problem.getStartT(), problem.getNTimeSteps(), nLoads)) {
+			index = new LoadIndex(loads, problem.getStartT(), problem.getNTimeSteps());
+			this.index = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Discard the index of the availability and charging speeds of the loads.
+	 * Should be called after changing the arrival, departure or charging speed of any of the loads
+	 */
+	public void invalidateIndex() {
+		index = null;
 	}
 
 	public Grid getGrid() {
@@ -135,15 +158,48 @@ public class Loads {
 	 * Returns true iff load i is available at time step t
 	 */
 	public boolean isLoadAvailable(int i, int t) {
+		LoadIndex index = getIndex();
+		if (index.contains(t)) return index.isAvailable(i, t);
 		return loads[i].isAvailable(t + problem.getStartT());
 	}
 
+	/**
+	 * Returns the number of loads that are available at time step t
+	 */
+	public int getNAvailableLoads(int t) {
+		LoadIndex index = getIndex();
+		if (index.contains(t)) return index.getNAvailable(t);
+		return (int) IntStream.range(0, nLoads).filter(i -> isLoadAvailable(i, t)).count();
+	}
+
+	/**
+	 * Returns the summed maximum charging speed of all loads that are available at time step t
+	 */
+	public double getSummedChargingSpeed(int t) {
+		LoadIndex index = getIndex();
+		if (index.contains(t)) return index.getSummedChargingSpeed(t);
+		return IntStream.range(0, nLoads).filter(i -> isLoadAvailable(i, t))
+			.mapToDouble(i -> loads[i].getChargingSpeed(t + problem.getStartT())).sum();
+	}
+
+	/**
+	 * Returns the average maximum charging speed of the loads that are available at time step t,
+	 * or 0 if no load is available
+	 */
+	public double getAverageChargingSpeed(int t) {
+		int n = getNAvailableLoads(t);
+		if (n == 0) return 0;
+		return getSummedChargingSpeed(t) / n;
+	}
+
 	/**
 	 * Returns the maximum charging speed of load i at time step t
 	 */
 	public double getChargingSpeed(int i, int t) {
 		if(!considerLoad(i))
 			return 0;
+		LoadIndex index = getIndex();
+		if (index.contains(t)) return index.getChargingSpeed(i, t);
 		return loads[i].getChargingSpeed(t + problem.getStartT());
 	}
 	
@@ -161,7 +217,7 @@ public class Loads {
 		if(!considerLoad(i))
 			return 0;
 		//TODO set maximum discharging speed
-		return loads[i].getChargingSpeed(t + problem.getStartT());
+		return getChargingSpeed(i, t);
 	}
 	
 	/**
@@ -279,6 +279,22 @@ public class Market {
 		return pricedata.getScenarioProbability(i);
 	}
 	
+	/**
+	 * Get the scenarios ordered from high to low by the price that decides on the acceptance of a down bid at time step t:
+	 * the capacity payment if the market has capacity payments, the regulating price otherwise
+	 */
+	public int[] getScenariosOrderedByDownBidPrice(int t) {
+		return hasCapacityPayments() ? getScenariosOrderedByDownCapacityPayment(t) : getScenariosOrderedByDownRegulatingPrice(t);
+	}
+	
+	/**
+	 * Get the scenarios ordered from high to low by the price that decides on the acceptance of an up bid at time step t:
+	 * the capacity payment if the market has capacity payments, the regulating price otherwise
+	 */
+	public int[] getScenariosOrderedByUpBidPrice(int t) {
+		return hasCapacityPayments() ? getScenariosOrderedByUpCapacityPayment(t) : getScenariosOrderedByUpRegulatingPrice(t);
+	}
+	
 	//Ordered from  high to low
 	public int[] getScenariosOrderedByDownRegulatingPrice(int t) {
 		return pricedata.getScenariosOrderedByDownPrice(getStartT() + t);
@@ -1,7 +1,10 @@
 package nl.tudelft.alg.fcc.model;
 
+import java.util.Arrays;
+
 public class PerMinuteData extends PriceData {
 	double[] downprice, upprice, upreg, downreg, midprice, imbprice, mindownprice, maxupprice;
+	double[] sorteddownprice, sortedupprice; // the minute prices of every PTU, sorted from low to high per PTU
 	final int ptuLength;
 	
 	public PerMinuteData(int nTimeSteps, int ptuLength) {
@@ -14,6 +17,8 @@ public class PerMinuteData extends PriceData {
 		imbprice = new double[nTimeSteps / ptuLength];
 		mindownprice = new double[nTimeSteps / ptuLength];
 		maxupprice = new double[nTimeSteps / ptuLength];
+		sorteddownprice = new double[nTimeSteps / ptuLength * ptuLength];
+		sortedupprice = new double[nTimeSteps / ptuLength * ptuLength];
 		this.ptuLength = ptuLength;
 	}
 	
@@ -63,6 +68,50 @@ public class PerMinuteData extends PriceData {
 		imbprice[T] = p;
 		mindownprice[T] = minDown;
 		maxupprice[T] = maxUp;
+		sortPrices(downprice, sorteddownprice, T);
+		sortPrices(upprice, sortedupprice, T);
+	}
+	
+	/**
+	 * Copy the minute prices of PTU T to the sorted index and sort them
+	 */
+	private void sortPrices(double[] prices, double[] sorted, int T) {
+		System.arraycopy(prices, T * ptuLength, sorted, T * ptuLength, ptuLength);
+		Arrays.sort(sorted, T * ptuLength, (T + 1) * ptuLength);
+	}
+	
+	/**
+	 * @return the first position in PTU T of the sorted prices with a price larger than (or equal to, if inclusive) the given price
+	 */
+	private int search(double[] sorted, int T, double price, boolean inclusive) {
+		int low = T * ptuLength, high = (T + 1) * ptuLength;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] < price || (!inclusive && sorted[mid] == price)) low = mid + 1;
+			else high = mid;
+		}
+		return low - T * ptuLength;
+	}
+	
+	/**
+	 * @return the fraction of the minutes of PTU T with a down regulating price of at least the given price
+	 */
+	public double getDownRegulatingProportionAbove(int T, double price) {
+		return (double) (ptuLength - search(sorteddownprice, T, price, true)) / ptuLength;
+	}
+	
+	/**
+	 * @return the fraction of the minutes of PTU T with a down regulating price of at most the given price
+	 */
+	public double getDownRegulatingProportionBelow(int T, double price) {
+		return (double) search(sorteddownprice, T, price, false) / ptuLength;
+	}
+	
+	/**
+	 * @return the fraction of the minutes of PTU T with an up regulating price of at least the given price
+	 */
+	public double getUpRegulatingProportionAbove(int T, double price) {
+		return (double) (ptuLength - search(sortedupprice, T, price, true)) / ptuLength;
 	}
 	
 	public double getDownRegulatingPrice(int t) {
@@ -17,8 +17,8 @@ public abstract class PriceData {
 		extraData = new HashMap<String, Object>();
 	}
 	
-	public void addDateIndex(String date, int index) {
-		Calendar cal = Utils.stringToCalender(date);
+	public void addDateIndex(String date, String format, int index) {
+		Calendar cal = Utils.stringToCalender(date, format);
 		addDateIndex(cal, index);
 	}
 	
@@ -10,10 +10,28 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import nl.tudelft.alg.fcc.utils.CSVWriter;
+import nl.tudelft.alg.fcc.utils.OutputWriter;
 import nl.tudelft.alg.fcc.utils.Utils;
 
 public class PriceScenarioData extends PriceData implements Cloneable {
-	double[][] downprice, upprice, 
+	/**
+	 * The orientation in which the scenario data is stored
+	 */
+	public enum Layout {
+		TIME_MAJOR, //the scenarios of one time step are stored adjacently
+		SCENARIO_MAJOR; //the time steps of one scenario are stored adjacently
+
+		/**
+		 * Parse a layout from its name in the configuration, e.g. "scenario major" or "time major"
+		 */
+		public static Layout fromString(String name) {
+			return valueOf(name.trim().toUpperCase().replaceAll("[\\s\\-]+", "_"));
+		}
+	}
+
+	private static volatile Layout defaultLayout = Layout.SCENARIO_MAJOR;
+
+	ScenarioMatrix downprice, upprice, 
 			imbalanceprice, 
 			proportionDownUsed, proportionUpUsed,
 			capdownprice, capupprice;
@@ -21,8 +39,7 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		expectedProportionDownUsed, expectedProportionUpUsed,
 		expectedDownprice, expectedUpprice,
 		expectedCapdownprice, expectedCapupprice;
-	int[][] sortedIndicesUpCap, sortedIndicesUpReg,
-		sortedIndicesDownCap, sortedIndicesDownReg;
+	private volatile ScenarioRanks ranks; //the scenario orderings, calculated on first use
 	Line[][] APup, APdown, ERup, ERdown;
 	double[][] distance;
 	double downPriceStd;
@@ -31,19 +48,39 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	double upUsedStd;
 
 	public PriceScenarioData(int nTimeSteps, int nScenarios) {
+		this(nTimeSteps, nScenarios, defaultLayout);
+	}
+
+	public PriceScenarioData(int nTimeSteps, int nScenarios, Layout layout) {
+		this(nTimeSteps, nScenarios,
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout),
+				new ScenarioMatrix(nTimeSteps, nScenarios, layout));
+	}
+
+	/**
+	 * Construct a new PriceScenarioData object around existing scenario matrices
+	 */
+	private PriceScenarioData(int nTimeSteps, int nScenarios, ScenarioMatrix downprice, ScenarioMatrix upprice,
+			ScenarioMatrix capdownprice, ScenarioMatrix capupprice, ScenarioMatrix imbalanceprice,
+			ScenarioMatrix proportionDownUsed, ScenarioMatrix proportionUpUsed) {
 		super(nTimeSteps);
-		downprice = new double[nTimeSteps][nScenarios];
-		upprice = new double[nTimeSteps][nScenarios];
-		capdownprice = new double[nTimeSteps][nScenarios];
-		capupprice = new double[nTimeSteps][nScenarios];
+		this.downprice = downprice;
+		this.upprice = upprice;
+		this.capdownprice = capdownprice;
+		this.capupprice = capupprice;
+		this.imbalanceprice = imbalanceprice;
+		this.proportionDownUsed = proportionDownUsed;
+		this.proportionUpUsed = proportionUpUsed;
 		expectedDownprice = new double[nTimeSteps];
 		expectedUpprice = new double[nTimeSteps];
 		expectedCapdownprice = new double[nTimeSteps];
 		expectedCapupprice = new double[nTimeSteps];
-		imbalanceprice = new double[nTimeSteps][nScenarios];
-		proportionDownUsed = new double[nTimeSteps][nScenarios];
 		expectedProportionDownUsed = new double[nTimeSteps];
-		proportionUpUsed = new double[nTimeSteps][nScenarios];
 		expectedProportionUpUsed = new double[nTimeSteps];
 		scenarioProbability = new double[nScenarios];
 		expectedImbalancePrice = new double[nTimeSteps];
@@ -52,28 +89,33 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		ERdown = new Line[nTimeSteps][];
 		APup = new Line[nTimeSteps][];
 		ERup = new Line[nTimeSteps][];
-		sortedIndicesDownCap = new int[nTimeSteps][];
-		sortedIndicesDownReg = new int[nTimeSteps][];
-		sortedIndicesUpCap = new int[nTimeSteps][];
-		sortedIndicesUpReg = new int[nTimeSteps][];
 		reset();
 	}
+
+	/**
+	 * Set the layout in which new PriceScenarioData objects store their scenario data
+	 */
+	public static void setDefaultLayout(Layout layout) {
+		defaultLayout = layout;
+	}
+
+	/**
+	 * @return the layout in which this object stores its scenario data
+	 */
+	public Layout getLayout() {
+		return downprice.layout;
+	}
 	
 	/**
 	 * Concatenate two PriceScenarioData objects
 	 * A new object is created. Does not alter this or other
 	 */
 	public PriceScenarioData concat(PriceScenarioData other) {
-		PriceScenarioData result = new PriceScenarioData(this.getNTimeSteps(), this.getNScenarios() + other.getNScenarios());
-		for(int t=0; t<result.getNTimeSteps(); t++) {
-   		result.downprice[t] = Utils.concatArrays(this.downprice[t], other.downprice[t]);
-   		result.upprice[t] = Utils.concatArrays(this.upprice[t], other.upprice[t]);
-   		result.capdownprice[t] = Utils.concatArrays(this.capdownprice[t], other.capdownprice[t]);
-   		result.capupprice[t] = Utils.concatArrays(this.capupprice[t], other.capupprice[t]);
-   		result.imbalanceprice[t] = Utils.concatArrays(this.imbalanceprice[t], other.imbalanceprice[t]);
-   		result.proportionDownUsed[t] = Utils.concatArrays(this.proportionDownUsed[t], other.proportionDownUsed[t]);
-   		result.proportionUpUsed[t] = Utils.concatArrays(this.proportionUpUsed[t], other.proportionUpUsed[t]);
-		}
+		PriceScenarioData result = new PriceScenarioData(this.getNTimeSteps(), this.getNScenarios() + other.getNScenarios(),
+				downprice.concat(other.downprice), upprice.concat(other.upprice),
+				capdownprice.concat(other.capdownprice), capupprice.concat(other.capupprice),
+				imbalanceprice.concat(other.imbalanceprice),
+				proportionDownUsed.concat(other.proportionDownUsed), proportionUpUsed.concat(other.proportionUpUsed));
 		result.daPrice = this.daPrice;
 		Arrays.fill(result.scenarioProbability, 1.0 / result.getNScenarios());
 		result.calcExpected();
@@ -83,22 +125,20 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	
 	/**
 	 * Return a new PriceScenarioData object that contains only the data from startT to endT
+	 * The scenario data is not copied, but shared with this object
 	 */
 	public PriceScenarioData limit(int startT, int endT) {
-		PriceScenarioData result = new PriceScenarioData(endT - startT, this.getNScenarios());
-		for(int t=0; t<endT-startT; t++) {
-   		result.downprice[t] = this.downprice[t+startT];
-   		result.upprice[t] = this.upprice[t+startT];
-   		result.capdownprice[t] = this.capdownprice[t+startT];
-   		result.capupprice[t] = this.capupprice[t+startT];
-   		result.imbalanceprice[t] = this.imbalanceprice[t+startT];
-   		result.proportionDownUsed[t] = this.proportionDownUsed[t+startT];
-   		result.proportionUpUsed[t] = this.proportionUpUsed[t+startT];
-		}
+		PriceScenarioData result = new PriceScenarioData(endT - startT, this.getNScenarios(),
+				downprice.limit(startT, endT), upprice.limit(startT, endT),
+				capdownprice.limit(startT, endT), capupprice.limit(startT, endT),
+				imbalanceprice.limit(startT, endT),
+				proportionDownUsed.limit(startT, endT), proportionUpUsed.limit(startT, endT));
 		result.daPrice = this.daPrice;
 		Arrays.fill(result.scenarioProbability, 1.0 / result.getNScenarios());
 		result.calcExpected();
 		result.reset();
+		ScenarioRanks ranks = this.ranks;
+		if(ranks != null) result.ranks = ranks.limit(startT, endT);
 		return result;
 	}
 
@@ -109,10 +149,7 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	 * 3) calculated standard deviations
 	 */
 	public void reset() {
-		Arrays.fill(sortedIndicesDownCap, null);
-		Arrays.fill(sortedIndicesDownReg, null);
-		Arrays.fill(sortedIndicesUpCap, null);
-		Arrays.fill(sortedIndicesUpReg, null);
+		ranks = null;
 		distance = null;
 		downPriceStd = 0;
 		upPriceStd = 0;
@@ -122,23 +159,17 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 
 	/**
 	 * Create a new PriceScenarioData object with only the selected scenarios
+	 * The scenario data is not copied, but shared with this object until either of them is changed
 	 */
 	public PriceScenarioData filter(int[] scenarios) {
 		int nTimeSteps = daPrice.length;
-		PriceScenarioData result = new PriceScenarioData(nTimeSteps, scenarios.length);
-		for(int i=0; i<scenarios.length; i++) {
-			int ix = scenarios[i];
-			for(int t=0; t<nTimeSteps; t++) {
-				result.downprice[t][i] = downprice[t][ix];
-				result.upprice[t][i] = upprice[t][ix];
-				result.capdownprice[t][i] = capdownprice[t][ix];
-				result.capupprice[t][i] = capupprice[t][ix];
-				result.imbalanceprice[t][i] = imbalanceprice[t][ix];
-				result.proportionDownUsed[t][i] = proportionDownUsed[t][ix];
-				result.proportionUpUsed[t][i] = proportionUpUsed[t][ix];
-			}
-			result.scenarioProbability[i] = scenarioProbability[ix] * (scenarioProbability.length) / (scenarios.length);
-		}
+		PriceScenarioData result = new PriceScenarioData(nTimeSteps, scenarios.length,
+				downprice.filter(scenarios), upprice.filter(scenarios),
+				capdownprice.filter(scenarios), capupprice.filter(scenarios),
+				imbalanceprice.filter(scenarios),
+				proportionDownUsed.filter(scenarios), proportionUpUsed.filter(scenarios));
+		for(int i=0; i<scenarios.length; i++)
+			result.scenarioProbability[i] = scenarioProbability[scenarios[i]] * (scenarioProbability.length) / (scenarios.length);
 		result.expectedDownprice = expectedDownprice.clone();
 		result.expectedUpprice = expectedUpprice.clone();
 		result.expectedCapdownprice = expectedCapdownprice.clone();
@@ -151,23 +182,27 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		result.ERdown = ERdown.clone();
 		result.APup = APup.clone();
 		result.ERup = ERup.clone();
+		ScenarioRanks ranks = this.ranks;
+		if(ranks != null) result.ranks = ranks.filter(scenarios, getNScenarios());
 		return result;
 	}
 	
 	public void setDownPrice(int t, int i, double p) {
-		downprice[t][i] = p;
+		downprice.set(t, i, p);
+		if(ranks != null) ranks = null;
 	}
 	
 	public double getDownPrice(int t, int i) {
-		return downprice[t][i];
+		return downprice.get(t, i);
 	}
 	
 	public void setCapDownPrice(int t, int i, double p) {
-		capdownprice[t][i] = p;
+		capdownprice.set(t, i, p);
+		if(ranks != null) ranks = null;
 	}
 	
 	public double getCapDownPrice(int t, int i) {
-		return capdownprice[t][i];
+		return capdownprice.get(t, i);
 	}
 	
 	public double getExpectedDownPrice(int t) {
@@ -179,19 +214,21 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	}
 	
 	public void setUpPrice(int t, int i, double p) {
-		upprice[t][i] = p;
+		upprice.set(t, i, p);
+		if(ranks != null) ranks = null;
 	}
 	
 	public double getUpPrice(int t, int i) {
-		return upprice[t][i];
+		return upprice.get(t, i);
 	}
 	
 	public void setCapUpPrice(int t, int i, double p) {
-		capupprice[t][i] = p;
+		capupprice.set(t, i, p);
+		if(ranks != null) ranks = null;
 	}
 	
 	public double getCapUpPrice(int t, int i) {
-		return capupprice[t][i];
+		return capupprice.get(t, i);
 	}
 	
 	public double getExpectedCapUpPrice(int t) {
@@ -205,19 +242,19 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	
 	
 	public void setImbalancePrice(int t, int i, double p) {
-		imbalanceprice[t][i] = p;
+		imbalanceprice.set(t, i, p);
 	}
 	
 	public double getImbalancePrice(int t, int i) {
-		return imbalanceprice[t][i];
+		return imbalanceprice.get(t, i);
 	}
 	
 	public void setProportionDownUsed(int t, int i, double p) {
-		proportionDownUsed[t][i] = p;
+		proportionDownUsed.set(t, i, p);
 	}
 	
 	public double getProportionDownUsed(int t, int i) {
-		return proportionDownUsed[t][i];
+		return proportionDownUsed.get(t, i);
 	}
 	
 	public double getExpectedProportionDownUsed(int t) {
@@ -225,11 +262,11 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	}
 	
 	public void setProportionUpUsed(int t, int i, double p) {
-		proportionUpUsed[t][i] = p;
+		proportionUpUsed.set(t, i, p);
 	}
 	
 	public double getProportionUpUsed(int t, int i) {
-		return proportionUpUsed[t][i];
+		return proportionUpUsed.get(t, i);
 	}
 	
 	public double getExpectedProportionUpUsed(int t) {
@@ -268,14 +305,13 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	 */
 	public void calcExpected(int startT, int endT) {
 		for(int t=startT; t<endT; t++) {
-			final int tx = t;
-			expectedImbalancePrice[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * imbalanceprice[tx][i]).sum();
-			expectedProportionDownUsed[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * proportionDownUsed[tx][i]).sum();
-			expectedProportionUpUsed[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * proportionUpUsed[tx][i]).sum();
-			expectedDownprice[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * downprice[tx][i]).sum();
-			expectedUpprice[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * upprice[tx][i]).sum();
-			expectedCapdownprice[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * capdownprice[tx][i]).sum();
-			expectedCapupprice[t] = IntStream.range(0,  getNScenarios()).mapToDouble(i -> scenarioProbability[i] * capupprice[tx][i]).sum();
+			expectedImbalancePrice[t] = imbalanceprice.weightedMean(t, scenarioProbability);
+			expectedProportionDownUsed[t] = proportionDownUsed.weightedMean(t, scenarioProbability);
+			expectedProportionUpUsed[t] = proportionUpUsed.weightedMean(t, scenarioProbability);
+			expectedDownprice[t] = downprice.weightedMean(t, scenarioProbability);
+			expectedUpprice[t] = upprice.weightedMean(t, scenarioProbability);
+			expectedCapdownprice[t] = capdownprice.weightedMean(t, scenarioProbability);
+			expectedCapupprice[t] = capupprice.weightedMean(t, scenarioProbability);
 		}
 	}
 	
@@ -309,6 +345,18 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 	public void setERUp(int t, Line[] lines) {
 		ERup[t] = lines;
 	}
+	public Line[] getAPDown(int t) {
+		return APdown[t];
+	}
+	public Line[] getAPUp(int t) {
+		return APup[t];
+	}
+	public Line[] getERDown(int t) {
+		return ERdown[t];
+	}
+	public Line[] getERUp(int t) {
+		return ERup[t];
+	}
 	
 	public int getAPpieces() {
 		return APdown[0].length;
@@ -326,52 +374,44 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		return expectedImbalancePrice.length;
 	}
 	
+	/**
+	 * Get the scenario orderings of all time steps. They are calculated on first use, and after any change of the prices
+	 */
+	ScenarioRanks getRanks() {
+		ScenarioRanks result = ranks;
+		if(result != null) return result;
+		synchronized(this) {
+			if(ranks == null) ranks = new ScenarioRanks(this);
+			return ranks;
+		}
+	}
+
 	/**
 	 * Get the scenarios ordered by down price from  high to low at time step t
 	 */
 	public int[] getScenariosOrderedByDownPrice(int t) {
-		if(sortedIndicesDownReg[t] != null) return sortedIndicesDownReg[t];
-		int[] sortedIndices = IntStream.range(0, downprice[t].length)
-                .boxed().sorted((i, j) -> Double.compare(downprice[t][j], downprice[t][i]))
-                .mapToInt(e -> e).toArray();
-		sortedIndicesDownReg[t] = sortedIndices;
-		return sortedIndices;
+		return getRanks().getDownRegulatingOrder(t);
 	}
 	
 	/**
 	 * Get the scenarios ordered by up price from  high to low at time step t
 	 */
 	public int[] getScenariosOrderedByUpPrice(int t) {
-		if(sortedIndicesUpReg[t] != null) return sortedIndicesUpReg[t];
-		int[] sortedIndices = IntStream.range(0, upprice[t].length)
-                .boxed().sorted((i, j) -> Double.compare(upprice[t][j], upprice[t][i]))
-                .mapToInt(e -> e).toArray();
-		sortedIndicesUpReg[t] = sortedIndices;
-		return sortedIndices;
+		return getRanks().getUpRegulatingOrder(t);
 	}
 	
 	/**
 	 * Get the scenarios ordered by capacity down price from  high to low at time step t
 	 */
 	public int[] getScenariosOrderedByDownCap(int t) {
-		if(sortedIndicesDownCap[t] != null) return sortedIndicesDownCap[t];
-		int[] sortedIndices = IntStream.range(0, capdownprice[t].length)
-                .boxed().sorted((i, j) -> Double.compare(capdownprice[t][j], capdownprice[t][i]))
-                .mapToInt(e -> e).toArray();
-		sortedIndicesDownCap[t] = sortedIndices;
-		return sortedIndices;
+		return getRanks().getDownCapacityOrder(t);
 	}
 	
 	/**
 	 * Get the scenarios ordered by capacity up price from  high to low at time step t
 	 */
 	public int[] getScenariosOrderedByUpCap(int t) {
-		if(sortedIndicesUpCap[t] != null) return sortedIndicesUpCap[t];
-		int[] sortedIndices = IntStream.range(0, capupprice[t].length)
-                .boxed().sorted((i, j) -> Double.compare(capupprice[t][j], capupprice[t][i]))
-                .mapToInt(e -> e).toArray();
-		sortedIndicesUpCap[t] = sortedIndices;
-		return sortedIndices;
+		return getRanks().getUpCapacityOrder(t);
 	}
 	
 	/**
@@ -383,59 +423,47 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		double uppriceStd = getUpPriceStd();
 		double ptudownStd = getDownUsedStd();
 		double ptuupStd = getUpUsedStd();
-		for (int t = startT; t < endT; t++) {
-			distance += Math.pow((getDownPrice(t, i) - getDownPrice(t, j)) / downpriceStd, 2);
-			distance += Math.pow((getUpPrice(t, i) - getUpPrice(t, j)) / uppriceStd, 2);
-			distance += Math.pow((getProportionDownUsed(t, i) - getProportionDownUsed(t, j)) / ptudownStd, 2);
-			distance += Math.pow((getProportionUpUsed(t, i) - getProportionUpUsed(t, j)) / ptuupStd, 2);
-		}
+		distance += squaredDistance(downprice, i, j, startT, endT) / (downpriceStd * downpriceStd);
+		distance += squaredDistance(upprice, i, j, startT, endT) / (uppriceStd * uppriceStd);
+		distance += squaredDistance(proportionDownUsed, i, j, startT, endT) / (ptudownStd * ptudownStd);
+		distance += squaredDistance(proportionUpUsed, i, j, startT, endT) / (ptuupStd * ptuupStd);
 		distance = Math.sqrt(distance);
 		return distance;
 	}
 
 	/**
-	 * Get the standard deviation of data
+	 * Get the sum of squared differences between scenarios i and j from startT to endT
 	 */
-	private double getStandardDeviation(double[][] data) {
-		double sum = 0;
-		int n = 0;
-		for (int i = 0; i < data.length; i++) {
-			for (int j = 0; j < data[i].length; j++) {
-				sum += data[i][j];
-				n++;
-			}
-		}
-		double avg = sum / n;
-		double std = 0;
-		for (int i = 0; i < data.length; i++) {
-			for (int j = 0; j < data[i].length; j++) {
-				std += Math.pow(avg - data[i][j], 2);
-			}
+	private static double squaredDistance(ScenarioMatrix data, int i, int j, int startT, int endT) {
+		double distance = 0.0;
+		for (int t = startT; t < endT; t++) {
+			double d = data.get(t, i) - data.get(t, j);
+			distance += d * d;
 		}
-		return Math.sqrt(std / (n - 1));
+		return distance;
 	}
 	
 	private double getDownPriceStd() {
 		if (downPriceStd == 0)
-			downPriceStd = getStandardDeviation(downprice);
+			downPriceStd = downprice.std();
 		return downPriceStd;
 	}
 
 	private double getUpPriceStd() {
 		if (upPriceStd == 0)
-			upPriceStd = getStandardDeviation(upprice);
+			upPriceStd = upprice.std();
 		return upPriceStd;
 	}
 
 	private double getDownUsedStd() {
 		if (downUsedStd == 0)
-			downUsedStd = getStandardDeviation(proportionDownUsed);
+			downUsedStd = proportionDownUsed.std();
 		return downUsedStd;
 	}
 
 	private double getUpUsedStd() {
 		if (upUsedStd == 0)
-			upUsedStd = getStandardDeviation(proportionUpUsed);
+			upUsedStd = proportionUpUsed.std();
 		return upUsedStd;
 	}
 
@@ -494,14 +522,12 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 
 	/**
 	 * Select the n most dissimilar scenarios from time step startT to endT by using fast forward selection
+	 * The distance matrix is not changed, the selection works on a copy
 	 */
-	public PriceScenarioData getFastForwardScenarioSelection(int startT, int endT, int n, double[][] distance) {
-		double[][] oDistance = new double[getNScenarios()][getNScenarios()];
-		for (int i = 0; i < getNScenarios(); i++) {
-			for (int j = 0; j < getNScenarios(); j++) {
-				oDistance[i][j] = distance[i][j];
-			}
-		}
+	public PriceScenarioData getFastForwardScenarioSelection(int startT, int endT, int n, double[][] oDistance) {
+		double[][] distance = new double[getNScenarios()][];
+		for (int i = 0; i < getNScenarios(); i++)
+			distance[i] = oDistance[i].clone();
 		List<Integer> selected = new ArrayList<Integer>(n);
 		List<Integer> notSelected = IntStream.range(0, getNScenarios()).boxed().collect(Collectors.toList());
 		
@@ -587,7 +613,10 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 		return costs;
 	}
 
-	private void initializeDistance(Loads loads, double ptu, int t) {
+	/**
+	 * Get the distance between the scenarios in the costs of a simple charging solution for the loads from time step t
+	 */
+	private double[][] getSolutionDistance(Loads loads, double ptu, int t) {
 		int n = getNScenarios();
 		double[][] distance = new double[n][n];
 		double[] result = new double[n];
@@ -601,26 +630,43 @@ public class PriceScenarioData extends PriceData implements Cloneable {
 				distance[j][i] = Math.abs(result[i] - result[j]);
 			}
 		}
-		initializeDistance(distance);
+		return distance;
 	}
 
+	/**
+	 * Select nScenarios scenarios by fast forward selection on the distance for the loads from time step t.
+	 * The distance depends on the loads and t, so it is determined for every call instead of stored in this object,
+	 * which may be reused in multiple time steps
+	 */
 	public PriceScenarioData reduceScenarioSet(Loads loads, double ptu, int t, int nScenarios) {
-		if (!isDistanceInitialized())
-			initializeDistance(loads, ptu, t);
-		return getFastForwardScenarioSelection(t, loads.getLastT(), nScenarios);
+		return getFastForwardScenarioSelection(t, loads.getLastT(), nScenarios, getSolutionDistance(loads, ptu, t));
 	}
 
 	@Override
 	public PriceScenarioData clone() {
-		return filter(IntStream.range(0, downprice[0].length).toArray());
+		return filter(IntStream.range(0, getNScenarios()).toArray());
 	}
 	
 	public void writeToFile(String folder) throws IOException {
-		CSVWriter.writeCsvFile(folder + "/price_down.csv", downprice, new String[] { "PTU", "Scenario" });
-		CSVWriter.writeCsvFile(folder + "/price_up.csv", upprice, new String[] { "PTU", "Scenario" });
-		if(Math.abs(Utils.sum(capdownprice)) > 1e-4)
-			CSVWriter.writeCsvFile(folder + "/cprice_down.csv", capdownprice, new String[] { "PTU", "Scenario" });
-		if(Math.abs(Utils.sum(capupprice)) > 1e-4)
-			CSVWriter.writeCsvFile(folder + "/cprice_up.csv", capupprice, new String[] { "PTU", "Scenario" });
+		getOutput(folder).write();
+	}
+	
+	/**
+	 * Write the price data on the background writer. The prices are copied before this method returns
+	 */
+	public void writeToFile(String folder, OutputWriter writer) {
+		writer.submit(getOutput(folder));
+	}
+	
+	private OutputWriter.Output getOutput(String folder) {
+		final double[][] down = downprice.toArray(), up = upprice.toArray();
+		final double[][] capdown = Math.abs(capdownprice.sum()) > 1e-4 ? capdownprice.toArray() : null;
+		final double[][] capup = Math.abs(capupprice.sum()) > 1e-4 ? capupprice.toArray() : null;
+		return () -> {
+			CSVWriter.writeCsvFile(folder + "/price_down.csv", down, new String[] { "PTU", "Scenario" });
+			CSVWriter.writeCsvFile(folder + "/price_up.csv", up, new String[] { "PTU", "Scenario" });
+			CSVWriter.writeCsvFile(folder + "/cprice_down.csv", capdown, new String[] { "PTU", "Scenario" });
+			CSVWriter.writeCsvFile(folder + "/cprice_up.csv", capup, new String[] { "PTU", "Scenario" });
+		};
 	}
 }
@@ -0,0 +1,183 @@
+package nl.tudelft.alg.fcc.model;
+
+import nl.tudelft.alg.fcc.model.PriceScenarioData.Layout;
+
+/**
+ * A (time step x scenario) matrix of doubles stored in one contiguous array.
+ * The matrix is either time-major (the scenarios of one time step are adjacent) or scenario-major
+ * (the time steps of one scenario are adjacent). A range of time steps can be selected as a view that shares the backing array.
+ * A subset of scenarios can be selected as a view that maps its scenario indices to the scenarios of the backing array.
+ * Such a view and the matrix it is taken from are copy-on-write: the first change to either of them copies its values to a new array.
+ */
+class ScenarioMatrix {
+	double[] data;
+	int offset, tStride, sStride;
+	int[] index; //the scenarios of the backing array that are in this matrix, or null for all scenarios
+	Sharing sharing; //marks whether the backing array is shared with a scenario subset view
+	final int nTimeSteps, nScenarios;
+	final Layout layout;
+
+	/**
+	 * Create a new zero-initialized matrix
+	 * @param nTimeSteps the number of time steps
+	 * @param nScenarios the number of scenarios
+	 * @param layout the orientation of the backing array
+	 */
+	ScenarioMatrix(int nTimeSteps, int nScenarios, Layout layout) {
+		if ((long) nTimeSteps * nScenarios > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Scenario data of " + nTimeSteps + " time steps and " + nScenarios + " scenarios is too large.");
+		this.data = new double[nTimeSteps * nScenarios];
+		this.offset = 0;
+		this.tStride = layout == Layout.TIME_MAJOR ? nScenarios : 1;
+		this.sStride = layout == Layout.TIME_MAJOR ? 1 : nTimeSteps;
+		this.index = null;
+		this.sharing = new Sharing();
+		this.nTimeSteps = nTimeSteps;
+		this.nScenarios = nScenarios;
+		this.layout = layout;
+	}
+
+	private ScenarioMatrix(ScenarioMatrix base, int offset, int nTimeSteps, int[] index) {
+		this.data = base.data;
+		this.offset = offset;
+		this.tStride = base.tStride;
+		this.sStride = base.sStride;
+		this.index = index;
+		this.sharing = base.sharing;
+		this.nTimeSteps = nTimeSteps;
+		this.nScenarios = index == null ? base.nScenarios : index.length;
+		this.layout = base.layout;
+	}
+
+	double get(int t, int i) {
+		return data[offset + t * tStride + scenario(i) * sStride];
+	}
+
+	void set(int t, int i, double v) {
+		if (sharing.copyOnWrite) materialize();
+		data[offset + t * tStride + scenario(i) * sStride] = v;
+	}
+
+	/**
+	 * @return the index in the backing array of scenario i
+	 */
+	private int scenario(int i) {
+		return index == null ? i : index[i];
+	}
+
+	/**
+	 * Copy the values of this matrix to a new backing array, so that it no longer shares its values with other matrices
+	 */
+	private void materialize() {
+		ScenarioMatrix copy = new ScenarioMatrix(nTimeSteps, nScenarios, layout);
+		for (int i = 0; i < nScenarios; i++)
+			copy.copyScenario(i, this, i);
+		data = copy.data;
+		offset = 0;
+		tStride = copy.tStride;
+		sStride = copy.sStride;
+		index = null;
+		sharing = copy.sharing;
+	}
+
+	/**
+	 * Get a view on the time steps from startT to endT. Changes to the view are written through to this matrix,
+	 * unless the values of this matrix are shared with a scenario subset view
+	 */
+	ScenarioMatrix limit(int startT, int endT) {
+		return new ScenarioMatrix(this, offset + startT * tStride, endT - startT, index);
+	}
+
+	/**
+	 * Get a copy-on-write view with only the selected scenarios
+	 */
+	ScenarioMatrix filter(int[] scenarios) {
+		int[] viewIndex = new int[scenarios.length];
+		for (int i = 0; i < scenarios.length; i++)
+			viewIndex[i] = scenario(scenarios[i]);
+		sharing.copyOnWrite = true;
+		return new ScenarioMatrix(this, offset, nTimeSteps, viewIndex);
+	}
+
+	/**
+	 * Copy all time steps of scenario j of another matrix with the same number of time steps to scenario i of this matrix
+	 */
+	void copyScenario(int i, ScenarioMatrix other, int j) {
+		if (sharing.copyOnWrite) materialize();
+		if (tStride == 1 && other.tStride == 1) {
+			System.arraycopy(other.data, other.offset + other.scenario(j) * other.sStride, data, offset + scenario(i) * sStride, nTimeSteps);
+			return;
+		}
+		for (int t = 0; t < nTimeSteps; t++)
+			set(t, i, other.get(t, j));
+	}
+
+	/**
+	 * Create a new matrix with the scenarios of this matrix followed by the scenarios of other
+	 */
+	ScenarioMatrix concat(ScenarioMatrix other) {
+		ScenarioMatrix result = new ScenarioMatrix(nTimeSteps, nScenarios + other.nScenarios, layout);
+		for (int i = 0; i < nScenarios; i++)
+			result.copyScenario(i, this, i);
+		for (int i = 0; i < other.nScenarios; i++)
+			result.copyScenario(nScenarios + i, other, i);
+		return result;
+	}
+
+	/**
+	 * Calculate the probability weighted mean over all scenarios at time step t
+	 */
+	double weightedMean(int t, double[] probability) {
+		double sum = 0;
+		int ix = offset + t * tStride;
+		if (index == null) {
+			for (int i = 0; i < nScenarios; i++, ix += sStride)
+				sum += probability[i] * data[ix];
+		} else {
+			for (int i = 0; i < nScenarios; i++)
+				sum += probability[i] * data[ix + index[i] * sStride];
+		}
+		return sum;
+	}
+
+	double sum() {
+		double sum = 0;
+		for (int t = 0; t < nTimeSteps; t++)
+			for (int i = 0; i < nScenarios; i++)
+				sum += get(t, i);
+		return sum;
+	}
+
+	/**
+	 * Get the (sample) standard deviation of all values in this matrix
+	 */
+	double std() {
+		int n = nTimeSteps * nScenarios;
+		double avg = sum() / n;
+		double std = 0;
+		for (int t = 0; t < nTimeSteps; t++)
+			for (int i = 0; i < nScenarios; i++) {
+				double d = avg - get(t, i);
+				std += d * d;
+			}
+		return Math.sqrt(std / (n - 1));
+	}
+
+	/**
+	 * @return a new (nTimeSteps x nScenarios) array with the values of this matrix
+	 */
+	double[][] toArray() {
+		double[][] result = new double[nTimeSteps][nScenarios];
+		for (int t = 0; t < nTimeSteps; t++)
+			for (int i = 0; i < nScenarios; i++)
+				result[t][i] = get(t, i);
+		return result;
+	}
+
+	/**
+	 * The sharing state of one backing array, common to all views on that array
+	 */
+	private static class Sharing {
+		volatile boolean copyOnWrite = false;
+	}
+}
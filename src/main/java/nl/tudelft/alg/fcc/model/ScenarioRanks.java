@@ -0,0 +1,141 @@
+package nl.tudelft.alg.fcc.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The scenarios of a price data set ordered from high to low price, for every time step and for the
+ * down and up regulating prices and capacity payments.
+ * All orderings are calculated at once, and can be shared with the time step ranges and the scenario subsets of the data set.
+ * Scenarios with the same price keep their original order.
+ * The returned orderings should not be changed.
+ */
+class ScenarioRanks {
+	private final int[][] downReg, upReg, downCap, upCap;
+
+	/**
+	 * Calculate the scenario orderings of all time steps of the price data
+	 */
+	ScenarioRanks(PriceScenarioData data) {
+		this(data.downprice, data.upprice, data.capdownprice, data.capupprice);
+	}
+
+	private ScenarioRanks(ScenarioMatrix downprice, ScenarioMatrix upprice, ScenarioMatrix capdownprice, ScenarioMatrix capupprice) {
+		final int nTimeSteps = downprice.nTimeSteps;
+		downReg = new int[nTimeSteps][];
+		upReg = new int[nTimeSteps][];
+		downCap = new int[nTimeSteps][];
+		upCap = new int[nTimeSteps][];
+		IntStream.range(0, nTimeSteps).parallel().forEach(t -> {
+			double[] values = new double[downprice.nScenarios];
+			int[] buffer = new int[downprice.nScenarios];
+			downReg[t] = order(downprice, t, values, buffer);
+			upReg[t] = order(upprice, t, values, buffer);
+			downCap[t] = order(capdownprice, t, values, buffer);
+			upCap[t] = order(capupprice, t, values, buffer);
+		});
+	}
+
+	private ScenarioRanks(int[][] downReg, int[][] upReg, int[][] downCap, int[][] upCap) {
+		this.downReg = downReg;
+		this.upReg = upReg;
+		this.downCap = downCap;
+		this.upCap = upCap;
+	}
+
+	/**
+	 * @return the scenarios ordered by down regulating price from high to low at time step t
+	 */
+	public int[] getDownRegulatingOrder(int t) {
+		return downReg[t];
+	}
+
+	/**
+	 * @return the scenarios ordered by up regulating price from high to low at time step t
+	 */
+	public int[] getUpRegulatingOrder(int t) {
+		return upReg[t];
+	}
+
+	/**
+	 * @return the scenarios ordered by down capacity payment from high to low at time step t
+	 */
+	public int[] getDownCapacityOrder(int t) {
+		return downCap[t];
+	}
+
+	/**
+	 * @return the scenarios ordered by up capacity payment from high to low at time step t
+	 */
+	public int[] getUpCapacityOrder(int t) {
+		return upCap[t];
+	}
+
+	/**
+	 * Get the orderings of the time steps [startT, endT). The orderings are shared with this object
+	 */
+	ScenarioRanks limit(int startT, int endT) {
+		return new ScenarioRanks(Arrays.copyOfRange(downReg, startT, endT), Arrays.copyOfRange(upReg, startT, endT),
+				Arrays.copyOfRange(downCap, startT, endT), Arrays.copyOfRange(upCap, startT, endT));
+	}
+
+	/**
+	 * Get the orderings of a subset of the scenarios, with the scenarios numbered by their position in the subset
+	 * @param scenarios the selected scenarios, in increasing order
+	 * @param nScenarios the number of scenarios in this object
+	 * @return the orderings of the subset, or null if the scenarios are not in increasing order
+	 */
+	ScenarioRanks filter(int[] scenarios, int nScenarios) {
+		int[] position = new int[nScenarios];
+		Arrays.fill(position, -1);
+		for (int i = 0; i < scenarios.length; i++) {
+			if (i > 0 && scenarios[i] <= scenarios[i - 1]) return null;
+			position[scenarios[i]] = i;
+		}
+		if (scenarios.length == nScenarios) return this;
+		return new ScenarioRanks(filter(downReg, position, scenarios.length), filter(upReg, position, scenarios.length),
+				filter(downCap, position, scenarios.length), filter(upCap, position, scenarios.length));
+	}
+
+	private static int[][] filter(int[][] orders, int[] position, int n) {
+		int[][] result = new int[orders.length][];
+		for (int t = 0; t < orders.length; t++) {
+			int[] order = new int[n];
+			int k = 0;
+			for (int i : orders[t])
+				if (position[i] >= 0) order[k++] = position[i];
+			result[t] = order;
+		}
+		return result;
+	}
+
+	/**
+	 * Order the scenarios of time step t from high to low value, with a stable merge sort on primitive arrays
+	 */
+	private static int[] order(ScenarioMatrix matrix, int t, double[] values, int[] buffer) {
+		final int n = matrix.nScenarios;
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			values[i] = matrix.get(t, i);
+			order[i] = i;
+		}
+		mergeSort(order, buffer, 0, n, values);
+		return order;
+	}
+
+	private static void mergeSort(int[] order, int[] buffer, int from, int to, double[] values) {
+		if (to - from < 2) return;
+		int mid = (from + to) >>> 1;
+		mergeSort(order, buffer, from, mid, values);
+		mergeSort(order, buffer, mid, to, values);
+		if (Double.compare(values[order[mid]], values[order[mid - 1]]) <= 0) return;
+		System.arraycopy(order, from, buffer, from, to - from);
+		int i = from, j = mid;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < mid && Double.compare(values[buffer[j]], values[buffer[i]]) <= 0))
+				order[k] = buffer[i++];
+			else
+				order[k] = buffer[j++];
+		}
+	}
+}
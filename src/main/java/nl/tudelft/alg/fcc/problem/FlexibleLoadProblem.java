@@ -102,7 +102,7 @@ public class FlexibleLoadProblem implements IProblem, Cloneable {
 	}
 	
 	public int getTimeStepFromDateString(String date) {
-		Calendar d = Utils.stringToCalender(date);
+		Calendar d = Utils.stringToCalender(date, config.dateformat);
 		return (int)(ChronoUnit.MINUTES.between(config.startdate.toInstant(), d.toInstant()) / (60 * market.getPTU()));
 	}
 	
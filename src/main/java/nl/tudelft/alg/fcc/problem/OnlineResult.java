@@ -1,41 +1,198 @@
 package nl.tudelft.alg.fcc.problem;
 
-import nl.tudelft.alg.fcc.utils.Utils;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * The result of one or more rolling horizon simulations.
+ * The decisions and evaluations of every PTU are only kept if they are needed for the output, and are then kept as they are produced,
+ * for the remaining horizon of that PTU. The decisions and evaluations over the full horizon are derived when they are requested.
+ */
 public class OnlineResult {
 	public Result evaluation;
-	public Result[] evaluationList;
-	public DecisionVariables[][] decisions;
+	final int nTimesteps;
+	final boolean keepPTUs;
+	final List<Run> runs;
 
-	public OnlineResult(int nTimesteps) {
-		decisions = new DecisionVariables[nTimesteps][1];
+	/**
+	 * The log of one rolling horizon simulation
+	 */
+	private static class Run {
+		final DecisionVariables[] decisions; // the decisions at every PTU for the remaining horizon
+		final Result[] evaluations; // the evaluation at every PTU of the remaining horizon
+		final double[][] costSoFar, runtimeSoFar; // the cost and runtime before every PTU
+		double[] cost, runtime; // the cost and runtime of the results that have been added so far
+		DecisionVariables lastDecisions; // the decisions over the full horizon of PTU lastT
+		int lastT;
+
+		Run(int nTimesteps, boolean keepPTUs) {
+			decisions = keepPTUs ? new DecisionVariables[nTimesteps] : null;
+			evaluations = keepPTUs ? new Result[nTimesteps] : null;
+			costSoFar = keepPTUs ? new double[nTimesteps][] : null;
+			runtimeSoFar = keepPTUs ? new double[nTimesteps][] : null;
+			lastT = -1;
+		}
+
+		/**
+		 * Derive the decisions over the full horizon of PTU t from those of PTU t-1,
+		 * so requesting the PTUs in order takes linear time
+		 */
+		DecisionVariables getDecisions(int t) {
+			if (lastT > t) lastT = -1;
+			for (int s = lastT + 1; s <= t; s++)
+				lastDecisions = s == 0 ? decisions[0] : decisions[s].padWithZeros(lastDecisions);
+			lastT = t;
+			return lastDecisions;
+		}
+	}
+
+	/**
+	 * @param nTimesteps the number of PTUs in the simulation
+	 * @param keepPTUs whether to keep the decisions and evaluations of every PTU
+	 */
+	public OnlineResult(int nTimesteps, boolean keepPTUs) {
+		this.nTimesteps = nTimesteps;
+		this.keepPTUs = keepPTUs;
+		runs = new ArrayList<>();
+		runs.add(new Run(nTimesteps, keepPTUs));
 		evaluation = null;
-		evaluationList = null;
+	}
+
+	private Run getRun() {
+		return runs.get(0);
 	}
 
 	public void addDecision(int t, DecisionVariables dec) {
-		if (t > 0)
-			dec = dec.padWithZeros(decisions[t - 1][0]);
-		decisions[t][0] = dec;
+		if (keepPTUs)
+			getRun().decisions[t] = dec;
 	}
 
-	public void concat(OnlineResult other) {
-		evaluation.concat(other.evaluation);
-		for (int t = 0; t < decisions.length; t++) {
-			decisions[t] = Utils.concatArrays(decisions[t], other.decisions[t]);
+	/**
+	 * Add the result of a PTU (or of the day-ahead market) that has passed
+	 */
+	public void addRealizedResult(Result result) {
+		Run run = getRun();
+		if (run.cost == null) {
+			run.cost = new double[result.nScenarios];
+			run.runtime = new double[result.nScenarios];
 		}
-		for (int t = 0; t < evaluationList.length; t++) {
-			evaluationList[t].concat(other.evaluationList[t]);
+		for (int i = 0; i < run.cost.length; i++) {
+			run.cost[i] += result.cost[i];
+			run.runtime[i] += result.runtime[i];
 		}
 	}
 
+	/**
+	 * Add the evaluation of the remaining horizon at PTU t.
+	 * Should be called before the realized result of PTU t is added
+	 */
+	public void addPTUEvaluation(int t, Result result) {
+		if (!keepPTUs) return;
+		Run run = getRun();
+		run.evaluations[t] = result;
+		if (t > 0 && run.cost != null) {
+			run.costSoFar[t] = run.cost.clone();
+			run.runtimeSoFar[t] = run.runtime.clone();
+		}
+	}
+
+	public void concat(OnlineResult other) {
+		evaluation.concat(other.evaluation);
+		runs.addAll(other.runs);
+	}
+
 	public void addEvaluation(Result evaluation) {
 		this.evaluation = evaluation;
 	}
 
-	public void printResultsToFile() {}
+	public int getNPTUs() {
+		return nTimesteps;
+	}
 
-	public void addEvaluationList(Result[] resultsAll) {
-		this.evaluationList = resultsAll;
-	};
+	/**
+	 * @return the decisions over the full horizon at PTU t, for every simulation
+	 */
+	public DecisionVariables[] getPTUDecisions(int t) {
+		if (!keepPTUs) throw new IllegalStateException("The decisions per PTU are not kept");
+		DecisionVariables[] decisions = new DecisionVariables[runs.size()];
+		for (int r = 0; r < runs.size(); r++)
+			decisions[r] = runs.get(r).getDecisions(t);
+		return decisions;
+	}
+
+	/**
+	 * @return the evaluation over the full horizon at PTU t, of all simulations combined
+	 */
+	public Result getPTUEvaluation(int t) {
+		if (!keepPTUs) throw new IllegalStateException("The evaluations per PTU are not kept");
+		Result result = null;
+		for (Run run : runs) {
+			Result r = Result.align(run.evaluations, t, run.costSoFar[t], run.runtimeSoFar[t]);
+			if (result == null) result = r;
+			else result.concat(r);
+		}
+		return result;
+	}
+
+	/**
+	 * Write the decisions and evaluations of all PTUs to three columnar files in the folder, instead of to a folder per PTU:
+	 * ptu_decisions.csv (per PTU, simulation, load and time step), ptu_evaluations.csv (per PTU, time step, load and scenario)
+	 * and ptu_costs.csv (per PTU and scenario). The day-ahead purchases and the extra variables of the decisions are not written
+	 */
+	public void printPTUResultsToFile(String folder, double penalty) throws IOException {
+		new File(folder).mkdirs();
+		StringBuilder line = new StringBuilder();
+		try (BufferedWriter dec = new BufferedWriter(new FileWriter(folder + "/ptu_decisions.csv"));
+				BufferedWriter eval = new BufferedWriter(new FileWriter(folder + "/ptu_evaluations.csv"));
+				BufferedWriter cost = new BufferedWriter(new FileWriter(folder + "/ptu_costs.csv"))) {
+			writeLine(dec, line.append("PTU,Run,L,T,pc,pd,rcd_bid,rcu_bid,rdd_bid,rdu_bid,pd_bid,pu_bid,pimb"));
+			writeLine(eval, line.append("PTU,T,L,Scenario,dsoc,rd,ru,imb"));
+			writeLine(cost, line.append("PTU,Scenario,cost,penalizedcost,shortage,overflow,runtime"));
+			for (int t = 0; t < nTimesteps; t++) {
+				DecisionVariables[] decisions = getPTUDecisions(t);
+				for (int r = 0; r < decisions.length; r++) {
+					DecisionVariables d = decisions[r];
+					for (int e = 0; e < d.nLoads; e++) {
+						for (int s = 0; s < d.nTimesteps; s++) {
+							line.append(t).append(',').append(r).append(',').append(e).append(',').append(s)
+									.append(',').append(d.p[e][s]).append(',').append(d.dp[e][s])
+									.append(',').append(d.rcd[e][s]).append(',').append(d.rcu[e][s])
+									.append(',').append(d.rdd[e][s]).append(',').append(d.rdu[e][s])
+									.append(',').append(d.bd[e][s]).append(',').append(d.bu[e][s])
+									.append(',').append(d.pimb[s]);
+							writeLine(dec, line);
+						}
+					}
+				}
+				Result result = getPTUEvaluation(t);
+				for (int s = 0; s < result.nTimeSteps; s++) {
+					for (int e = 0; e < result.nLoads; e++) {
+						for (int i = 0; i < result.nScenarios; i++) {
+							line.append(t).append(',').append(s).append(',').append(e).append(',').append(i)
+									.append(',').append(result.dsoc[s][e][i]).append(',').append(result.rd[s][i])
+									.append(',').append(result.ru[s][i]).append(',').append(result.imb[s][i]);
+							writeLine(eval, line);
+						}
+					}
+				}
+				double[] penalized = result.getTotalCost(penalty);
+				for (int i = 0; i < result.nScenarios; i++) {
+					line.append(t).append(',').append(i).append(',').append(result.cost[i]).append(',').append(penalized[i])
+							.append(',').append(result.shortage[i]).append(',').append(result.overflow[i])
+							.append(',').append(result.runtime[i]);
+					writeLine(cost, line);
+				}
+			}
+		}
+	}
+
+	private static void writeLine(BufferedWriter writer, StringBuilder line) throws IOException {
+		writer.append(line);
+		writer.newLine();
+		line.setLength(0);
+	}
 }
@@ -43,6 +43,7 @@ public class ProblemConfiguration implements Cloneable {
 	int relaxedBinaryAfter = Integer.MAX_VALUE; //After which PTUs may binary variables be relaxed (to reduce computational burden). Integer.MAX_VALUE means never
 	String clusterMethod;
 	Calendar startdate;
+	String dateformat;
 	String solutionFile;
 	int fileOutput;
 	String modelSetting;
@@ -47,6 +47,16 @@ public class Result {
 		this.rd = new double[nTimeSteps][nScenarios];
 		this.ru = new double[nTimeSteps][nScenarios];
 	}
+	
+	/**
+	 * Create an empty result with the same dimensions as an other result, without allocating its arrays
+	 */
+	private Result(Result shape) {
+		this.nLoads = shape.nLoads;
+		this.nScenarios = shape.nScenarios;
+		this.nTimeSteps = shape.nTimeSteps;
+		this.initialSoc = Arrays.copyOf(shape.initialSoc, nLoads);
+	}
 
 	public double getAvgCost() {
 		return Utils.avg(cost);
@@ -378,29 +388,48 @@ public class Result {
 	}
 
 	/**
-	 * Pad a result with zero's to make the indices of two results align
-	 * @param prev The previous result with which to align this result
-	 * @param resultSoFar The results so far, used to take into account what has already happened
+	 * Create the result over the full horizon at PTU t of a rolling horizon simulation, 
+	 * from the first PTU of the evaluations at the earlier PTUs and the evaluation of the remaining horizon at PTU t.
+	 * The rows of the evaluations are shared, not copied
+	 * @param evaluations the evaluations at PTU 0 until t, every one of the remaining horizon at that PTU
+	 * @param t the PTU
+	 * @param costSoFar the cost per scenario of what has already happened before PTU t, or null if nothing has
+	 * @param runtimeSoFar the runtime per scenario before PTU t, or null
 	 */
-	public Result padWithZeros(Result prev, Result resultSoFar) {
-		Result result = new Result(prev.initialSoc, prev.nScenarios, prev.nTimeSteps, prev.da.length);
-		result.shortage = Utils.deepArrayCopy(this.shortage);
-		result.overflow = Utils.deepArrayCopy(this.overflow);
-		result.soc = Utils.deepArrayCopy(this.soc);
-		result.cost = IntStream.range(0, prev.nScenarios).mapToDouble(i -> resultSoFar.cost[i] + this.cost[i]).toArray();
-		result.runtime = IntStream.range(0, prev.nScenarios).mapToDouble(i -> resultSoFar.runtime[i] + this.runtime[i]).toArray();
-		System.arraycopy(Utils.deepArrayCopy(prev.dsoc), 0, result.dsoc, 0, prev.dsoc.length - this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(prev.imb), 0, result.imb, 0, prev.imb.length - this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(prev.da), 0, result.da, 0, prev.da.length - this.da.length);
-		System.arraycopy(Utils.deepArrayCopy(prev.rd), 0, result.rd, 0, prev.rd.length - this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(prev.ru), 0, result.ru, 0, prev.ru.length - this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(this.dsoc), 0, result.dsoc, prev.dsoc.length - this.nTimeSteps, this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(this.imb), 0, result.imb, prev.imb.length - this.nTimeSteps, this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(this.da), 0, result.da, prev.da.length - this.da.length, this.da.length);
-		System.arraycopy(Utils.deepArrayCopy(this.rd), 0, result.rd, prev.rd.length - this.nTimeSteps, this.nTimeSteps);
-		System.arraycopy(Utils.deepArrayCopy(this.ru), 0, result.ru, prev.ru.length - this.nTimeSteps, this.nTimeSteps);
+	static Result align(Result[] evaluations, int t, double[] costSoFar, double[] runtimeSoFar) {
+		Result first = evaluations[0], current = evaluations[t];
+		Result result = new Result(first);
+		int nHours = first.da.length;
+		result.shortage = Arrays.copyOf(current.shortage, current.shortage.length);
+		result.overflow = Arrays.copyOf(current.overflow, current.overflow.length);
+		result.soc = Utils.deepArrayCopy(current.soc);
+		result.cost = IntStream.range(0, result.nScenarios)
+				.mapToDouble(i -> costSoFar == null ? current.cost[i] : costSoFar[i] + current.cost[i]).toArray();
+		result.runtime = IntStream.range(0, result.nScenarios)
+				.mapToDouble(i -> runtimeSoFar == null ? current.runtime[i] : runtimeSoFar[i] + current.runtime[i]).toArray();
+		result.dsoc = new double[result.nTimeSteps][][];
+		result.imb = new double[result.nTimeSteps][];
+		result.rd = new double[result.nTimeSteps][];
+		result.ru = new double[result.nTimeSteps][];
+		result.da = new double[nHours][];
+		for (int k = 0; k < result.nTimeSteps; k++) {
+			Result r = k < t ? evaluations[k] : current;
+			int row = k < t ? 0 : k - t;
+			result.dsoc[k] = r.dsoc[row].clone();
+			result.imb[k] = r.imb[row];
+			result.rd[k] = r.rd[row];
+			result.ru[k] = r.ru[row];
+		}
+		// the hours that passed between PTU s-1 and s are taken from the evaluation at PTU s-1
+		for (int s = 1; s <= t; s++) {
+			int from = nHours - evaluations[s - 1].da.length, to = nHours - evaluations[s].da.length;
+			for (int h = from; h < to; h++)
+				result.da[h] = evaluations[s - 1].da[h - from];
+		}
+		for (int h = nHours - current.da.length; h < nHours; h++)
+			result.da[h] = current.da[h - nHours + current.da.length];
 		return result;
-}
+	}
 	
 	
 	
@@ -19,6 +19,7 @@ import java.util.stream.IntStream;
 import org.ini4j.Ini;
 import org.ini4j.IniPreferences;
 
+import nl.tudelft.alg.fcc.model.PriceScenarioData;
 import nl.tudelft.alg.fcc.problem.ProblemConfiguration;
 import nl.tudelft.alg.fcc.simulator.data.ArimaConfig;
 import nl.tudelft.alg.fcc.simulator.data.MarkovConfig;
@@ -39,12 +40,13 @@ public class Config {
 	
 	public int nLoads, nScenarios, maxScenarios, nUClusters, nDClusters, shortagePenalty,
 			resultShortagePenalty, firstLoadID, fixedPTUs, ptuLength, relaxedBinaryAfter, randomSeed,
-			nTests, startEvaluationScenario, evaluationScenario, nEvaluationScenarios, verbose, fileOutput;
+			nTests, startEvaluationScenario, evaluationScenario, nEvaluationScenarios, verbose, fileOutput, parallelRuns, parallelEvaluations, parallelLRSubproblems;
 	public String workingDirectory, outputFolder, mipLogFile, mipDebugFile, experimentType, clusterMethod, reservesSettlement, evStateFile, gridFile,
 			startdatestring, dateformat, pricedataFolder, model, mipsolver, output,
-			generatorType, realizationType, gradient, reservesMarketClearance, solutionFile, modelSetting, markovDownFile, markovUpFile, scenarioSelectionMethod;
+			generatorType, realizationType, gradient, reservesMarketClearance, solutionFile, modelSetting, markovDownFile, markovUpFile, scenarioSelectionMethod, scenarioLayout;
 	public boolean randomScenarios, V2G, capacityPayment, capacityMarket,
-			dayAhead, dayAheadSeperate, imbalance, reserves, grid, quantityOnly, perMinute, mipDebug, semiStochastic;
+			dayAhead, dayAheadSeperate, imbalance, reserves, grid, quantityOnly, perMinute, mipDebug, semiStochastic, priceDataCache,
+			consolidatedOutput;
 	public double robustness, minBid, desiredProbabilityOfAcceptance,
 			mipTimeLimit, subTimeLimit, mipGap, ptu, batteryDegradation, scenarioFactor;
 	public ArimaConfig downConfig, upConfig;
@@ -99,12 +101,16 @@ public class Config {
 		if (ptuLength > 60 || ptuLength <= 0 || 60 % ptuLength != 0)
 			throw new InvalidConfigurationException("PTU length must be less than one hour, at least one minute, and a divisor of 60.");
 		ptu = ptuLength / 60.0;
-		Utils.setDateFormat(dateformat);
-		this.startdate = Utils.stringToCalender(startdatestring);
+		try {
+			PriceScenarioData.setDefaultLayout(PriceScenarioData.Layout.fromString(scenarioLayout));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidConfigurationException("Unknown scenario data layout: " + scenarioLayout + ". Use scenario major or time major.");
+		}
+		this.startdate = Utils.stringToCalender(startdatestring, dateformat);
 		String[] split = model.split("\\-");
 		model = split[0];
 		if (split.length > 1) {
-			if (model.equals("IRSC")) nScenarios = Integer.parseInt(split[1]);
+			if (model.equals("IRSC") || model.equals("IRSA")) nScenarios = Integer.parseInt(split[1]);
 			if (model.equals("IRD")) desiredProbabilityOfAcceptance = Double.parseDouble(split[1]);
 			if (model.equals("IRD") && split.length > 2) semiStochastic = split[2].equalsIgnoreCase("S");
 			modelSetting = String.join("-", Arrays.copyOfRange(split, 1, split.length));
@@ -159,6 +165,19 @@ public class Config {
 		this(loadPreferencesFromFile(filename, "config"), filename);
 	}
 
+	/**
+	 * Create an independent copy of this configuration by reloading the experiment file
+	 * The copy shares the start time, so that its output ends up in the same folder
+	 * @return the new configuration
+	 * @throws IOException when the ini file cannot be read
+	 * @throws InvalidConfigurationException when the configuration file contains invalid values
+	 */
+	Config copy() throws IOException, InvalidConfigurationException {
+		Config copy = new Config(expFileName);
+		copy.startTime = startTime;
+		return copy;
+	}
+
 	public ProblemConfiguration getProblemConfiguration() {
 		ProblemConfiguration config = new ProblemConfiguration();
 		Utils.copyMatchingFields(this, config);
@@ -350,6 +369,7 @@ public class Config {
 		addSetting("evaluationScenario", "evaluation scenario", "field/start evaluation scenario");
 		addSetting("nEvaluationScenarios", "number of evaluation scenarios", "field/maximum scenarios");
 		addSetting("fileOutput", "file output", 1);
+		addSetting("consolidatedOutput", "consolidated output", false);
 		addSetting("mipDebug", "mip debug", false);
 		addSetting("verbose", "verbose", 5);
 		addSetting("mipTimeLimit", "mip time limit", Double.POSITIVE_INFINITY);
@@ -369,5 +389,10 @@ public class Config {
 		addSetting("markovDownFile", "markov down file", "markov_ptu_down_probs.txt");
 		addSetting("markovUpFile", "markov up file", "markov_ptu_up_probs.txt");
 		addSetting("scenarioFactor", "scenario factor", 1);
+		addSetting("parallelRuns", "parallel runs", 1);
+		addSetting("parallelEvaluations", "parallel evaluation scenarios", 1);
+		addSetting("parallelLRSubproblems", "parallel LR subproblems", 1);
+		addSetting("scenarioLayout", "scenario data layout", "scenario major");
+		addSetting("priceDataCache", "price data cache", false);
 	}
 }
@@ -1,7 +1,9 @@
 package nl.tudelft.alg.fcc.simulator;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 
 import nl.tudelft.alg.MipSolverCore.IMIPSolver;
@@ -10,6 +12,7 @@ import nl.tudelft.alg.fcc.model.FlexibleLoad;
 import nl.tudelft.alg.fcc.model.Loads;
 import nl.tudelft.alg.fcc.model.Market;
 import nl.tudelft.alg.fcc.model.PriceScenarioData;
+import nl.tudelft.alg.fcc.simulator.RandomStreams.Stream;
 import nl.tudelft.alg.fcc.simulator.data.ArimaGenerator;
 import nl.tudelft.alg.fcc.simulator.data.Data;
 import nl.tudelft.alg.fcc.simulator.data.DataGenerator;
@@ -23,24 +26,42 @@ public class DataProvider {
 	Simulator simulator;
 	Data data;
 	Config config;
-	static Random realizationRandom;
-	static Random scenariosRandom;
+	Random realizationRandom;
+	Random scenariosRandom;
+	PriceScenarioData scenarioTree; //The scenario tree reused between time steps
+	Data scenarioTreeRealization; //The realization for which the scenario tree was generated
+	Map<Integer, Map<Integer, ScenarioSelection>> scenarioSelections; //The optimal scenario selections per total and selected number of scenarios
 
 	public DataProvider(Simulator simulator) throws IOException {
 		this.simulator = simulator;
 		this.config = simulator.config;
 		this.data = new Data(config);
+		this.scenarioSelections = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Create a data provider that shares the already loaded data and the scenario selections of another data provider
+	 * @param simulator the simulator using this data provider
+	 * @param parent the data provider with the loaded data
+	 */
+	DataProvider(Simulator simulator, DataProvider parent) {
+		this.simulator = simulator;
+		this.config = simulator.config;
+		this.data = parent.data;
+		this.scenarioSelections = parent.scenarioSelections;
 	}
 	
-	 public static void initRand(int seed) {
-	    	if(seed != 0) {
-	    		realizationRandom = new Random(seed);
-	    		scenariosRandom = new Random(seed+1);
-	    	} else {
-				realizationRandom = new Random();
-				scenariosRandom = new Random();
-	    	}
-	    }
+	/**
+	 * Set the random generators for the realization and the scenarios of one simulation episode
+	 * @param streams the random streams of the simulation
+	 * @param run the index of the problem configuration
+	 * @param test the index of the test
+	 * @param scenario the index of the evaluation scenario
+	 */
+	public void initRand(RandomStreams streams, int run, int test, int scenario) {
+		realizationRandom = streams.get(Stream.REALIZATION, run, test, scenario);
+		scenariosRandom = streams.get(Stream.SCENARIOS, run, test, scenario);
+	}
 
 	protected DataGenerator getRealizationGenerator() throws InvalidConfigurationException {
 		switch (config.realizationType.toLowerCase()) {
@@ -110,16 +131,55 @@ public class DataProvider {
 	}
 
 	public Data getScenarioTree(Data real, int t) throws InvalidConfigurationException {
+		if (isScenarioTreeTimeInvariant()) {
+			if (scenarioTree == null || scenarioTreeRealization != real) {
+				Data data = getRandomHistoricScenarios(config.maxScenarios);
+				scenarioTree = getScenarioTreeGenerator().generate(config, t, real, data, config.maxScenarios);
+				scenarioTreeRealization = real;
+			}
+			return getDataFromPriceScenarioData(scenarioTree);
+		}
 		Data data = getRandomHistoricScenarios(config.maxScenarios);
 		Data ret = getDataFromPriceScenarioData(getScenarioTreeGenerator().generate(config, t, real, data, config.maxScenarios));
 		return ret;
 	}
 
-	private int[] findOptimalScenarios(PriceScenarioData priceData, int nScenarios) throws SolverException {
-		ScenarioSelection selection = null;
-		if (ScenarioSelector.cache.containsKey(priceData.getNScenarios())) {
-			selection = ScenarioSelector.cache.get(priceData.getNScenarios()).get(nScenarios);
+	/**
+	 * The scenario tree does not depend on the time step when it is taken directly from the historic data (without random subset),
+	 * or from the realization. In that case the tree of the previous time step is reused, together with its calculated expected values
+	 * and scenario orderings
+	 * @return true if the scenario tree is the same for every time step of a simulation
+	 */
+	private boolean isScenarioTreeTimeInvariant() {
+		switch (config.generatorType.toLowerCase()) {
+			case "historic":
+				return config.maxScenarios >= getNScenarios();
+			case "perfect-information":
+				return true;
+			default:
+				return false;
 		}
+	}
+
+	/**
+	 * Clear the reused scenario tree
+	 */
+	public void resetScenarioTree() {
+		scenarioTree = null;
+		scenarioTreeRealization = null;
+	}
+
+	/**
+	 * Clear the cached optimal scenario selections
+	 */
+	public void resetScenarioSelections() {
+		scenarioSelections.clear();
+	}
+
+	private int[] findOptimalScenarios(PriceScenarioData priceData, int nScenarios) throws SolverException {
+		Map<Integer, ScenarioSelection> selections =
+				scenarioSelections.computeIfAbsent(priceData.getNScenarios(), n -> new ConcurrentHashMap<>());
+		ScenarioSelection selection = selections.get(nScenarios);
 		if (selection == null) {
 			selection = new ScenarioSelection();
 			Loads loads = getSelectedLoads();
@@ -127,6 +187,7 @@ public class DataProvider {
 			IMIPSolver solver = simulator.getMIPSolver();
 			solver.build(selector);
 			solver.solve();
+			if (selection.scenarios != null) selections.put(nScenarios, selection);
 		}
 		return selection.scenarios;
 	}
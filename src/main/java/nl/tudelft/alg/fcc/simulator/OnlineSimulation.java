@@ -30,8 +30,7 @@ public class OnlineSimulation {
 		double cost = 0;
 		int da = problem.getMarket().hasDayAhead() ? 1 : 0;
 		Result[] results = new Result[nTimeSteps + da];
-		Result[] resultsAll = new Result[nTimeSteps];
-		OnlineResult onlineResult = new OnlineResult(nTimeSteps);
+		OnlineResult onlineResult = new OnlineResult(nTimeSteps, simulator.config.fileOutput >= 2);
 		
 		//Build and solve the DA model
 		if(problem.getMarket().hasDayAhead()) {
@@ -42,6 +41,7 @@ public class OnlineSimulation {
 			Result dar = checker.checkDA();
 			cost += dar.getAvgCost();
 			results[0] = dar;
+			onlineResult.addRealizedResult(dar);
 			println(simulator.config.verbose,
 					neatDouble(Utils.sum(dar.getAvgDA())) + " MWh bought DA.\tCost from DA: \u20ac "
 							+ neatDouble(dar.getAvgCost()) + ".\tAverage: "
@@ -84,15 +84,14 @@ public class OnlineSimulation {
 			onlineResult.addDecision(t, problem.getVars());
 			soc = resultOne.getAvgSoc();
 			results[da + t] = resultOne;
-			if (t > 0)
-				resultAll = resultAll.padWithZeros(resultsAll[t - 1], Result.combine(Arrays.copyOfRange(results, 0, da + t)));
-			else if (da == 1)
+			if (t == 0 && da == 1)
 				resultAll.incCost(results[0].getAvgCost());
-			resultsAll[t] = resultAll;
+			onlineResult.addPTUEvaluation(t, resultAll);
+			onlineResult.addRealizedResult(resultOne);
 			if(simulator.config.fileOutput > 2) {
 				String folder = Paths.get(simulator.getFolder(pConfig.getOutputFolder()), "PTU " + t, "data").toString();
 				new File(folder).mkdirs();
-				problem.getMarket().getPricedata().writeToFile(folder);
+				problem.getMarket().getPricedata().writeToFile(folder, simulator.getOutputWriter());
 			}
 			
 		}
@@ -100,7 +99,6 @@ public class OnlineSimulation {
 		printEndingSummary(simulator, problem, cost, results[results.length - 1], startSoc);
 		
 		onlineResult.addEvaluation(Result.combine(results));
-		onlineResult.addEvaluationList(resultsAll);
 		
 		for(int e=0; e<nLoads; e++) {
 			//assert soc[e] <= problem.getLoads().getBatteryCapacity(e) + 1e-3;
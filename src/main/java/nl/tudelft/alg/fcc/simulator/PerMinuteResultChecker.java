@@ -49,31 +49,17 @@ public class PerMinuteResultChecker extends ResultChecker {
 		return getMinuteData().getMaxUpRegulatingPrice(problem.getStartT() + t);
 	}
 
-	private int toMinutes(int t) {
-		return (problem.getStartT() + t) * getMinuteData().getPTULength();
-	}
-
 	@Override
 	protected double getDownReserveProportion(int e, int t, int i) {
-		DecisionVariables dec = getNetDecisions();
-		double bidprice = dec.bd[e][t];
-		double prop = 0;
-		for (int a = 0; a < getMinuteData().getPTULength(); a++) {
-			if (downReservesAccepted(bidprice, getMinuteData().getDownRegulatingPrice(toMinutes(t) + a)))
-				prop += 1.0 / getMinuteData().getPTULength();
-		}
-		return prop;
+		double bidprice = getNetDecisions().bd[e][t];
+		if (problem.getMarket().hasCapacityPayments())
+			return getMinuteData().getDownRegulatingProportionAbove(problem.getStartT() + t, bidprice);
+		return getMinuteData().getDownRegulatingProportionBelow(problem.getStartT() + t, bidprice);
 	}
 
 	@Override
 	protected double getUpReserveProportion(int e, int t, int i) {
-		DecisionVariables dec = getNetDecisions();
-		double bidprice = dec.bu[e][t];
-		double prop = 0;
-		for (int a = 0; a < getMinuteData().getPTULength(); a++) {
-			if (upReservesAccepted(bidprice, getMinuteData().getUpRegulatingPrice(toMinutes(t) + a)))
-				prop += 1.0 / getMinuteData().getPTULength();
-		}
-		return prop;
+		double bidprice = getNetDecisions().bu[e][t];
+		return getMinuteData().getUpRegulatingProportionAbove(problem.getStartT() + t, bidprice);
 	}
 }
@@ -0,0 +1,58 @@
+package nl.tudelft.alg.fcc.simulator;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Provides independent, reproducible random streams for a simulation.
+ * Every stream is derived from the random seed and is keyed by its purpose, the run, the test and the evaluation scenario,
+ * so the numbers drawn in one simulation episode do not depend on the order in which (or the thread on which) episodes are run.
+ */
+public class RandomStreams {
+	/**
+	 * The purposes for which random numbers are drawn
+	 */
+	public enum Stream {
+		REALIZATION, //generation of the realization
+		SCENARIOS, //generation and selection of the scenarios given to the solution model
+		MODEL //random choices made by the solution models
+	}
+
+	final int seed;
+
+	/**
+	 * Create a new stream provider
+	 * @param seed the random seed, or 0 for unseeded (non reproducible) streams
+	 */
+	public RandomStreams(int seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Get a random generator for one stream
+	 * @param stream the purpose of the stream
+	 * @param run the index of the problem configuration
+	 * @param test the index of the test
+	 * @param scenario the index of the evaluation scenario
+	 * @return a new random generator, seeded by the key of the stream (or unseeded when the seed is 0)
+	 */
+	public Random get(Stream stream, int run, int test, int scenario) {
+		if (seed == 0) return new Random();
+		return new Random(getSeed(stream, run, test, scenario));
+	}
+
+	/**
+	 * Derive the seed of one stream by successively mixing the key into the random seed
+	 * @param stream the purpose of the stream
+	 * @param run the index of the problem configuration
+	 * @param test the index of the test
+	 * @param scenario the index of the evaluation scenario
+	 * @return the seed of the stream
+	 */
+	long getSeed(Stream stream, int run, int test, int scenario) {
+		long s = seed;
+		for (int key : new int[] { stream.ordinal(), run, test, scenario })
+			s = new SplittableRandom(s ^ (0x9E3779B97F4A7C15L * (key + 1))).nextLong();
+		return s;
+	}
+}
@@ -1,5 +1,7 @@
 package nl.tudelft.alg.fcc.simulator;
 
+import java.util.stream.IntStream;
+
 import nl.tudelft.alg.fcc.model.Market;
 import nl.tudelft.alg.fcc.problem.DecisionVariables;
 import nl.tudelft.alg.fcc.problem.FlexibleLoadProblem;
@@ -105,17 +107,72 @@ public class ResultChecker {
 		return problem.getMarket().getUpReserveProportion(t, i);
 	}
 
+	/**
+	 * Evaluate the reserve decisions for every scenario. The scenarios are independent, so they are evaluated in parallel.
+	 * The reserve amounts and their effect on the state of charge do not depend on the scenario, and are determined once.
+	 */
 	public void checkReserves(DecisionVariables dec, Result result) {
+		final int nTimeSteps = problem.getNTimeSteps(), nLoads = problem.getNLoads();
+		final double[][] dres = new double[nLoads][nTimeSteps], ures = new double[nLoads][nTimeSteps];
+		final double[][] dsocDown = new double[nLoads][nTimeSteps], dsocUp = new double[nLoads][nTimeSteps];
+		for (int e = 0; e < nLoads; e++) {
+			for (int t = 0; t < nTimeSteps; t++) {
+				dres[e][t] = dec.rcd[e][t] + dec.rdd[e][t];
+				ures[e][t] = dec.rcu[e][t] + dec.rdu[e][t];
+				dsocDown[e][t] = dec.rcd[e][t] * getEfficiency(dec.rcd[e][t])
+						+ dec.rdd[e][t] * getEfficiency(-dec.rdd[e][t]);
+				dsocUp[e][t] = dec.rcu[e][t] * getEfficiency(dec.rcu[e][t])
+						+ dec.rdu[e][t] * getEfficiency(-dec.rdu[e][t]);
+			}
+		}
+		IntStream.range(0, getNScenarios()).parallel()
+				.forEach(i -> checkReserves(dec, result, i, dres, ures, dsocDown, dsocUp));
+	}
+
+	/**
+	 * Evaluate the reserve decisions for scenario i. The prices are retrieved once per time step,
+	 * and the costs and reserve volumes are summed before they are added to the result
+	 */
+	private void checkReserves(DecisionVariables dec, Result result, int i,
+			double[][] dres, double[][] ures, double[][] dsocDown, double[][] dsocUp) {
+		Market market = problem.getMarket();
+		final double ptu = market.getPTU();
+		final double degradation = problem.getLoads().getBatteryDegradationCost();
+		final boolean paidAsBid = market.getReservesMarketClearance().equalsIgnoreCase("paid as bid");
+		final boolean capmarket = market.hasCapacityPayments();
+		double cost = 0;
 		for (int t = 0; t < problem.getNTimeSteps(); t++) {
+			final double downPrice = getDownRegulatingPrice(t, i);
+			final double upPrice = getUpRegulatingPrice(t, i);
+			final double downImbPrice = getDownImbalancePrice(t, i);
+			final double upImbPrice = getUpImbalancePrice(t, i);
+			final double downCapPrice = market.getDownCapacityPayment(t, i);
+			final double upCapPrice = market.getUpCapacityPayment(t, i);
+			double rd = 0, ru = 0;
 			for (int e = 0; e < problem.getNLoads(); e++) {
-				for (int i = 0; i < getNScenarios(); i++) {
-					if (downReservesAccepted(dec, e, t, i))
-						checkDownReserves(dec, result, e, t, i);
-					if (upReservesAccepted(dec, e, t, i))
-						checkUpReserves(dec, result, e, t, i);
+				if (downReservesAccepted(dec.bd[e][t], downPrice)) {
+					double price = paidAsBid && !capmarket ? dec.bd[e][t] : downImbPrice;
+					double capprice = paidAsBid && capmarket ? dec.bd[e][t] : downCapPrice;
+					double prop = getDownReserveProportion(e, t, i);
+					result.incSoc(t, e, i, dsocDown[e][t] * (ptu * prop));
+					rd += dres[e][t] * ptu * prop;
+					cost += dres[e][t] * ptu * (-capprice + prop * price);
+					cost += -ptu * prop * degradation * dec.rdd[e][t];
+				}
+				if (upReservesAccepted(dec.bu[e][t], upPrice)) {
+					double price = paidAsBid && !capmarket ? dec.bu[e][t] : upImbPrice;
+					double capprice = paidAsBid && capmarket ? dec.bu[e][t] : upCapPrice;
+					double prop = getUpReserveProportion(e, t, i);
+					result.incSoc(t, e, i, -dsocUp[e][t] * (ptu * prop));
+					ru += ures[e][t] * ptu * prop;
+					cost += -ures[e][t] * ptu * (capprice + prop * price);
+					cost += ptu * prop * degradation * dec.rdu[e][t];
 				}
 			}
+			result.incRD(t, i, rd);
+			result.incRU(t, i, ru);
 		}
+		result.incCost(i, cost);
 	}
 
 	protected boolean downReservesAccepted(double bidprice, double marketprice) {
@@ -123,56 +180,10 @@ public class ResultChecker {
 				(marketprice <= bidprice && !problem.getMarket().hasCapacityPayments());
 	}
 
-	protected boolean downReservesAccepted(DecisionVariables dec, int e, int t, int i) {
-		return downReservesAccepted(dec.bd[e][t], getDownRegulatingPrice(t, i));
-	}
-
 	protected boolean upReservesAccepted(double bidprice, double marketprice) {
 		return marketprice >= bidprice;
 	}
 
-	protected boolean upReservesAccepted(DecisionVariables dec, int e, int t, int i) {
-		return upReservesAccepted(dec.bu[e][t], getUpRegulatingPrice(t, i));
-	}
-
-	protected void checkDownReserves(DecisionVariables dec, Result result, int e, int t, int i) {
-		Market market = problem.getMarket();
-		final double ptu = market.getPTU();
-		boolean paidAsBid = market.getReservesMarketClearance().equalsIgnoreCase("paid as bid");
-		boolean capmarket = market.hasCapacityPayments();
-		double price = paidAsBid && !capmarket ? dec.bd[e][t] : getDownImbalancePrice(t, i);
-		double capprice = paidAsBid && capmarket ? dec.bd[e][t] : market.getDownCapacityPayment(t, i);
-		double prop = getDownReserveProportion(e, t, i);
-		double dres = (dec.rcd[e][t] + dec.rdd[e][t]);
-		double dsoc = dec.rcd[e][t] * getEfficiency(dec.rcd[e][t])
-				+ dec.rdd[e][t] * getEfficiency(-dec.rdd[e][t]);
-		dsoc *= ptu * prop;
-		result.incSoc(t, e, i, dsoc);
-		result.incRD(t, i, dres * ptu * prop);
-		result.incCost(i, dres * ptu * (-capprice + prop * price));
-		result.incCost(i, -ptu * prop *
-				problem.getLoads().getBatteryDegradationCost() * dec.rdd[e][t]);
-	}
-
-	protected void checkUpReserves(DecisionVariables dec, Result result, int e, int t, int i) {
-		Market market = problem.getMarket();
-		final double ptu = market.getPTU();
-		boolean paidAsBid = market.getReservesMarketClearance().equalsIgnoreCase("paid as bid");
-		boolean capmarket = market.hasCapacityPayments();
-		double price = paidAsBid && !capmarket ? dec.bu[e][t] : getUpImbalancePrice(t, i);
-		double capprice = paidAsBid && capmarket ? dec.bu[e][t] : market.getUpCapacityPayment(t, i);
-		double prop = getUpReserveProportion(e, t, i);
-		double ures = (dec.rcu[e][t] + dec.rdu[e][t]);
-		double dsoc = dec.rcu[e][t] * getEfficiency(dec.rcu[e][t])
-				+ dec.rdu[e][t] * getEfficiency(-dec.rdu[e][t]);
-		dsoc *= ptu * prop;
-		result.incSoc(t, e, i, -dsoc);
-		result.incRU(t, i, ures * ptu * prop);
-		result.incCost(i, -ures * ptu * (capprice + prop * price));
-		result.incCost(i, ptu * prop *
-				problem.getLoads().getBatteryDegradationCost() * dec.rdu[e][t]);
-	}
-
 	protected double getEfficiency(double p) {
 		if(p < 0) return 1.0 / problem.getLoads().getChargingEfficiency();
 		return problem.getLoads().getChargingEfficiency();
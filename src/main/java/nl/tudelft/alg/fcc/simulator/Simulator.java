@@ -7,8 +7,14 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import nl.tudelft.alg.MipSolverCore.IMIPSolver;
 import nl.tudelft.alg.MipSolverCore.IModel;
@@ -23,10 +29,12 @@ import nl.tudelft.alg.fcc.problem.FlexibleLoadProblem;
 import nl.tudelft.alg.fcc.problem.OnlineResult;
 import nl.tudelft.alg.fcc.problem.ProblemConfiguration;
 import nl.tudelft.alg.fcc.problem.Result;
+import nl.tudelft.alg.fcc.simulator.RandomStreams.Stream;
 import nl.tudelft.alg.fcc.simulator.data.Data;
 import nl.tudelft.alg.fcc.solution.ISolveModel;
+import nl.tudelft.alg.fcc.solution.lr.ParallelLRSolver;
 import nl.tudelft.alg.fcc.utils.ConsoleOutputCapturer;
-import nl.tudelft.alg.fcc.utils.ScenarioSelector;
+import nl.tudelft.alg.fcc.utils.OutputWriter;
 import nl.tudelft.alg.fcc.utils.Utils;
 
 /**
@@ -36,6 +44,10 @@ public class Simulator {
 	DataProvider dataProvider; //The class that generates the data for the simulation and evaluation
 	Config config;
 	Map<String, IMIPSolver> solvers;
+	ParallelLRSolver lrSolver; //the parallel LR solver, with its own pool of MIP solvers
+	RandomStreams randomStreams;
+	OutputWriter outputWriter; //writes the output files in the background, shared with the worker and episode simulators
+	static final int OUTPUT_QUEUE_SIZE = 64;
 
 	/**
 	 * Load an experiment from a ini file with address 'filename'
@@ -49,6 +61,35 @@ public class Simulator {
 		solvers = new HashMap<String, IMIPSolver>();
 	}
 
+	/**
+	 * Create a worker simulator for parallel runs, with its own copy of the configuration, data and solvers
+	 * @param parent the simulator that distributes the runs
+	 * @throws IOException when the ini file or the data cannot be read
+	 * @throws InvalidConfigurationException when the configuration file contains invalid values
+	 */
+	private Simulator(Simulator parent) throws IOException, InvalidConfigurationException {
+		config = parent.config.copy();
+		dataProvider = new DataProvider(this);
+		solvers = new HashMap<String, IMIPSolver>();
+		outputWriter = parent.getOutputWriter();
+	}
+
+	/**
+	 * Create an episode simulator for concurrent evaluation scenarios, which shares the configuration, data and random streams of
+	 * its parent, but has its own random generators and solvers
+	 * @param config the configuration of the parent
+	 * @param dataProvider the data provider of the parent
+	 * @param randomStreams the random streams of the parent
+	 * @param outputWriter the output writer of the parent
+	 */
+	private Simulator(Config config, DataProvider dataProvider, RandomStreams randomStreams, OutputWriter outputWriter) {
+		this.config = config;
+		this.dataProvider = new DataProvider(this, dataProvider);
+		this.randomStreams = randomStreams;
+		this.outputWriter = outputWriter;
+		solvers = new HashMap<String, IMIPSolver>();
+	}
+
 	/**
 	 * Run the simulation
 	 * @throws SolverException when an exception occurs in one of the solvers/solution models
@@ -62,45 +103,200 @@ public class Simulator {
 			return;
 		if (config.verbose == 1)
 			System.out.println(config.getColumnHeaders() + "\tCharging costs\tShortage\tOverflow\tTotal costs\tRun time");
-		for (int i = 0; i < config.getNumberOfRuns(); i++) {
-			ProblemConfiguration pConfig = config.setProblemConfiguration(i);
-			PriceScenarioData[] realization;
-			reset();
-			if (config.isOnline()) {
-				OnlineResult onlineResult = null;
-				realization = new PriceScenarioData[config.nTests * config.nEvaluationScenarios];
-				for (int t = 0; t < config.nTests; t++) {
-					pConfig = config.setProblemConfiguration(i, t);
-					for (int r = 0; r < config.nEvaluationScenarios; r++) {
-						config.evaluationScenario = (config.startEvaluationScenario + r) % dataProvider.getNScenarios();
-						pConfig.setRealization(dataProvider.getRealization());
-						OnlineResult newResult = OnlineSimulation.run(this, pConfig);
-						if (onlineResult == null) onlineResult = newResult;
-						else onlineResult.concat(newResult);
-						realization[t * config.nEvaluationScenarios + r] = pConfig.getPriceDataRealization();
+		if (config.parallelRuns > 1 && config.getNumberOfRuns() > 1)
+			runParallel(results);
+		else {
+			for (int i = 0; i < config.getNumberOfRuns(); i++) {
+				results[i] = runConfiguration(i);
+				printRunSummary(i, results[i]);
+			}
+		}
+		Result.boxplotOutput(getFolder(config.getBoxplotOutputFile()), config, results);
+		dispose();
+	}
+
+	/**
+	 * Run all the problem configurations on a pool of worker simulators.
+	 * Every run is executed by a separate simulator with its own configuration, data provider and solvers, which is created in
+	 * the task of the run, so only the data of the runs that are executing is loaded at the same time
+	 * @param results the array in which the result of every run is stored
+	 * @throws SolverException when an exception occurs in one of the solvers/solution models
+	 * @throws InvalidConfigurationException when the configuration of the problem is invalid
+	 * @throws IOException when reading or writing a file results in an error
+	 */
+	private void runParallel(Result[] results) throws SolverException, InvalidConfigurationException, IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(config.parallelRuns, results.length));
+		List<Future<Result>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < results.length; i++) {
+				final int run = i;
+				futures.add(pool.submit(() -> {
+					Simulator worker = new Simulator(this);
+					try {
+						return worker.runConfiguration(run);
+					} finally {
+						worker.disposeSolvers();
 					}
-				}
-				printResultsToFile(pConfig.getOutputFolder(), onlineResult);
-				results[i] = onlineResult.evaluation;
-			} else {
-				realization = new PriceScenarioData[config.nTests];
-				for (int t = 0; t < config.nTests; t++) {
-					pConfig = config.setProblemConfiguration(i, t);
-					pConfig.setRealization(dataProvider.getRealization());
-					Result res = DayAheadSimulation.run(this, pConfig);
-					if (results[i] == null) results[i] = res;
-					else results[i].concat(res);
-					realization[t] = pConfig.getPriceDataRealization();
+				}));
+			}
+			for (int i = 0; i < results.length; i++) {
+				results[i] = futures.get(i).get();
+				printRunSummary(i, results[i]);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolverException("Parallel run interrupted", e);
+		} catch (ExecutionException e) {
+			rethrowCause(e);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Run the simulation for a single problem configuration
+	 * @param i the index of the problem configuration
+	 * @return the (combined) result of all tests and evaluation scenarios of this configuration
+	 * @throws SolverException when an exception occurs in one of the solvers/solution models
+	 * @throws InvalidConfigurationException when the configuration of the problem is invalid
+	 * @throws IOException when reading or writing a file results in an error
+	 */
+	private Result runConfiguration(int i) throws SolverException, InvalidConfigurationException, IOException {
+		ProblemConfiguration pConfig = config.setProblemConfiguration(i);
+		PriceScenarioData[] realization;
+		Result result = null;
+		reset();
+		if (config.isOnline()) {
+			OnlineResult onlineResult = null;
+			realization = new PriceScenarioData[config.nTests * config.nEvaluationScenarios];
+			for (int t = 0; t < config.nTests; t++) {
+				pConfig = config.setProblemConfiguration(i, t);
+				OnlineResult[] newResults = config.parallelEvaluations > 1 && config.nEvaluationScenarios > 1 ?
+						runEvaluationScenariosParallel(i, t, pConfig, realization) :
+						runEvaluationScenarios(i, t, pConfig, realization);
+				for (OnlineResult newResult : newResults) {
+					if (onlineResult == null) onlineResult = newResult;
+					else onlineResult.concat(newResult);
 				}
 			}
-			if (config.verbose >= 1 && !config.output.equals("boxplot")) {
-				System.out.print(config.toStringTabbed(i) + "\t");
-				System.out.println(results[i].toString(config.resultShortagePenalty));
+			printResultsToFile(pConfig.getOutputFolder(), onlineResult);
+			result = onlineResult.evaluation;
+		} else {
+			realization = new PriceScenarioData[config.nTests];
+			for (int t = 0; t < config.nTests; t++) {
+				pConfig = config.setProblemConfiguration(i, t);
+				initRand(i, t, 0);
+				pConfig.setRealization(dataProvider.getRealization());
+				Result res = DayAheadSimulation.run(this, pConfig);
+				if (result == null) result = res;
+				else result.concat(res);
+				realization[t] = pConfig.getPriceDataRealization();
 			}
-			realizationOutput(pConfig.getOutputFolder(), realization);
 		}
-		Result.boxplotOutput(getFolder(config.getBoxplotOutputFile()), config, results);
-		dispose();
+		realizationOutput(pConfig.getOutputFolder(), realization);
+		return result;
+	}
+
+	/**
+	 * Run the rolling horizon simulation for all evaluation scenarios of one test
+	 * @param i the index of the problem configuration
+	 * @param t the index of the test
+	 * @param pConfig the problem configuration of the test
+	 * @param realization the array in which the realizations of all tests and evaluation scenarios are stored
+	 * @return the results per evaluation scenario
+	 * @throws SolverException when an exception occurs in one of the solvers/solution models
+	 * @throws InvalidConfigurationException when the configuration of the problem is invalid
+	 * @throws IOException when reading or writing a file results in an error
+	 */
+	private OnlineResult[] runEvaluationScenarios(int i, int t, ProblemConfiguration pConfig, PriceScenarioData[] realization)
+			throws SolverException, InvalidConfigurationException, IOException {
+		OnlineResult[] results = new OnlineResult[config.nEvaluationScenarios];
+		for (int r = 0; r < config.nEvaluationScenarios; r++) {
+			initRand(i, t, r);
+			config.evaluationScenario = (config.startEvaluationScenario + r) % dataProvider.getNScenarios();
+			pConfig.setRealization(dataProvider.getRealization());
+			results[r] = OnlineSimulation.run(this, pConfig);
+			realization[t * config.nEvaluationScenarios + r] = pConfig.getPriceDataRealization();
+		}
+		return results;
+	}
+
+	/**
+	 * Run the rolling horizon simulation for all evaluation scenarios of one test concurrently.
+	 * The realizations are generated in order, after which every evaluation scenario is simulated by an episode simulator
+	 * with its own solvers. At most 'parallel evaluation scenarios' episodes (and thus solver instances) are active at the same time
+	 * @param i the index of the problem configuration
+	 * @param t the index of the test
+	 * @param pConfig the problem configuration of the test
+	 * @param realization the array in which the realizations of all tests and evaluation scenarios are stored
+	 * @return the results per evaluation scenario, in scenario order
+	 * @throws SolverException when an exception occurs in one of the solvers/solution models
+	 * @throws InvalidConfigurationException when the configuration of the problem is invalid
+	 * @throws IOException when reading or writing a file results in an error
+	 */
+	private OnlineResult[] runEvaluationScenariosParallel(int i, int t, ProblemConfiguration pConfig, PriceScenarioData[] realization)
+			throws SolverException, InvalidConfigurationException, IOException {
+		OnlineResult[] results = new OnlineResult[config.nEvaluationScenarios];
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(config.parallelEvaluations, results.length));
+		List<Future<OnlineResult>> futures = new ArrayList<>();
+		try {
+			for (int r = 0; r < results.length; r++) {
+				initRand(i, t, r);
+				config.evaluationScenario = (config.startEvaluationScenario + r) % dataProvider.getNScenarios();
+				final ProblemConfiguration episodeConfig = pConfig.clone();
+				episodeConfig.setRealization(dataProvider.getRealization());
+				realization[t * config.nEvaluationScenarios + r] = episodeConfig.getPriceDataRealization();
+				final int scenario = r;
+				final Simulator episode = new Simulator(config, dataProvider, randomStreams, getOutputWriter());
+				futures.add(pool.submit(() -> {
+					try {
+						episode.initRand(i, t, scenario);
+						return OnlineSimulation.run(episode, episodeConfig);
+					} finally {
+						episode.disposeSolvers();
+					}
+				}));
+			}
+			for (int r = 0; r < results.length; r++)
+				results[r] = futures.get(r).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolverException("Evaluation interrupted", e);
+		} catch (ExecutionException e) {
+			rethrowCause(e);
+		} finally {
+			pool.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Rethrow the cause of an exception in a worker thread
+	 * @param e the exception thrown by the worker
+	 * @throws SolverException when the cause is a solver exception, or a checked exception of another type
+	 * @throws InvalidConfigurationException when the cause is a configuration exception
+	 * @throws IOException when the cause is an IO exception
+	 */
+	private static void rethrowCause(ExecutionException e) throws SolverException, InvalidConfigurationException, IOException {
+		Throwable cause = e.getCause();
+		if (cause instanceof SolverException) throw (SolverException) cause;
+		if (cause instanceof InvalidConfigurationException) throw (InvalidConfigurationException) cause;
+		if (cause instanceof IOException) throw (IOException) cause;
+		if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+		if (cause instanceof Error) throw (Error) cause;
+		throw new SolverException("Error in worker: " + cause.getMessage(), (Exception) cause);
+	}
+
+	/**
+	 * Print the summary of a single run
+	 * @param i the index of the problem configuration
+	 * @param result the result of the run
+	 */
+	private void printRunSummary(int i, Result result) {
+		if (config.verbose >= 1 && !config.output.equals("boxplot")) {
+			System.out.print(config.toStringTabbed(i) + "\t");
+			System.out.println(result.toString(config.resultShortagePenalty));
+		}
 	}
 
 	/**
@@ -108,11 +304,12 @@ public class Simulator {
 	 * @throws IOException when a reload of the data results in a file read error
 	 */
 	private void reset() throws IOException {
-		initRand(this); //Reset the random seed so that every experiment gives the same results
-		ScenarioSelector.resetCache();
-		if(dataProvider.data.getMarket().getPTU() == config.ptu)
+		randomStreams = new RandomStreams(config.randomSeed); //Reset the random seed so that every experiment gives the same results
+		if(dataProvider.data.getMarket().getPTU() == config.ptu) {
 			dataProvider.data.reset();
-		else
+			dataProvider.resetScenarioTree();
+			dataProvider.resetScenarioSelections();
+		} else
 			dataProvider = new DataProvider(this);
 	}
 
@@ -126,12 +323,14 @@ public class Simulator {
 	}
 
 	/**
-	 * Initialize the random seed to a fixed number, or random if randomSeed = 0
-	 * @param simulator the simulator
+	 * Initialize the random generators for one simulation episode
+	 * @param run the index of the problem configuration
+	 * @param test the index of the test
+	 * @param scenario the index of the evaluation scenario
 	 */
-	private static void initRand(Simulator simulator) {
-		Utils.initRand(simulator.config.randomSeed);
-		DataProvider.initRand(simulator.config.randomSeed);
+	private void initRand(int run, int test, int scenario) {
+		dataProvider.initRand(randomStreams, run, test, scenario);
+		Utils.setRandom(randomStreams.get(Stream.MODEL, run, test, scenario));
 	}
 
 	/**
@@ -147,11 +346,24 @@ public class Simulator {
 	 * Dispose the simulator
 	 */
 	private void dispose() {
+		if (outputWriter != null) {
+			outputWriter.close();
+			outputWriter = null;
+		}
 		ConsoleOutputCapturer.stop();
+		disposeSolvers();
+	}
+
+	/**
+	 * Dispose the solvers of this simulator
+	 */
+	private void disposeSolvers() {
 		for (IMIPSolver solver : solvers.values()) {
 			solver.dispose();
 		}
 		solvers.clear();
+		if (lrSolver != null) lrSolver.dispose();
+		lrSolver = null;
 	}
 
 	/**
@@ -185,6 +397,16 @@ public class Simulator {
 	 */
 	public IMIPSolver getMIPSolver() throws SolverException {
 		if (solvers.containsKey(config.mipsolver)) return solvers.get(config.mipsolver);
+		IMIPSolver solver = createMIPSolver();
+		solvers.put(config.mipsolver, solver);
+		return solver;
+	}
+
+	/**
+	 * @return a new instance of the MIP solver based on the configuration
+	 * @throws SolverException when the MIP solver cannot be instantiated.
+	 */
+	private IMIPSolver createMIPSolver() throws SolverException {
 		String className = "";
 		switch (config.mipsolver.toLowerCase()) {
 			case "gurobi":
@@ -202,7 +424,6 @@ public class Simulator {
 		} catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
 			throw new SolverException("MIP Solver not found: " + config.mipsolver + " (" + className + ")", e);
 		}
-		solvers.put(config.mipsolver, solver);
 		return solver;
 	}
 
@@ -211,6 +432,12 @@ public class Simulator {
 	 * @throws SolverException when the solver cannot be instantiated
 	 */
 	public ISolver getSolver() throws SolverException {
+		if (config.model.equals("LR") && config.parallelLRSubproblems > 1) {
+			if (lrSolver == null) lrSolver = new ParallelLRSolver(this::createMIPSolver, config.parallelLRSubproblems);
+			lrSolver.setDebug(config.mipDebug);
+			lrSolver.setTimeLimit(config.mipTimeLimit, config.subTimeLimit);
+			return lrSolver;
+		}
 		if (config.model.equals("LR")) {
 			ISolver solver = new LRSolver<FlexibleLoadProblem>(getMIPSolver());
 			solver.setDebug(config.mipDebug);
@@ -364,34 +591,46 @@ public class Simulator {
 	 */
 	public void printResultsToFile(String info, OnlineResult onlineResult) {
 		if (config.fileOutput < 1) return;
-		String folder = Paths.get(getFolder(info), "eval").toString();
-		new File(folder).mkdirs();
+		OutputWriter writer = getOutputWriter();
+		final double penalty = config.resultShortagePenalty;
+		String evalFolder = Paths.get(getFolder(info), "eval").toString();
 		copyConfigFile(info);
-		try {
-			onlineResult.evaluation.printResultsToFile(folder, config.resultShortagePenalty);
-		} catch (IOException e) {
-			System.out.println("Error in printing results: " + e.getLocalizedMessage());
-		}
+		writer.submit(() -> {
+			new File(evalFolder).mkdirs();
+			onlineResult.evaluation.printResultsToFile(evalFolder, penalty);
+		});
 		if (config.fileOutput < 2) return;
 		String baseFolder = getFolder(info);
-		for(int t=0; t<onlineResult.decisions.length; t++) {
-			folder = Paths.get(baseFolder, "PTU " + t).toString();
-			new File(folder).mkdirs();
-			try {
-				DecisionVariables.printResultsToFile(onlineResult.decisions[t], folder);
-			} catch (IOException e) {
-				System.out.println("Error in printing results: " + e.getLocalizedMessage());
-			}
+		if (config.consolidatedOutput) {
+			writer.submit(() -> onlineResult.printPTUResultsToFile(baseFolder, penalty));
+			return;
 		}
-		for (int t = 0; t < onlineResult.evaluationList.length; t++) {
-			folder = Paths.get(baseFolder, "PTU " + t, "eval").toString();
-			new File(folder).mkdirs();
-			try {
-				onlineResult.evaluationList[t].printResultsToFile(folder, config.resultShortagePenalty);
-			} catch (IOException e) {
-				System.out.println("Error in printing results: " + e.getLocalizedMessage());
-			}
+		//The results per PTU are derived here, and written in the background
+		for(int t=0; t<onlineResult.getNPTUs(); t++) {
+			final String folder = Paths.get(baseFolder, "PTU " + t).toString();
+			final DecisionVariables[] decisions = onlineResult.getPTUDecisions(t);
+			writer.submit(() -> {
+				new File(folder).mkdirs();
+				DecisionVariables.printResultsToFile(decisions, folder);
+			});
 		}
+		for (int t = 0; t < onlineResult.getNPTUs(); t++) {
+			final String folder = Paths.get(baseFolder, "PTU " + t, "eval").toString();
+			final Result evaluation = onlineResult.getPTUEvaluation(t);
+			writer.submit(() -> {
+				new File(folder).mkdirs();
+				evaluation.printResultsToFile(folder, penalty);
+			});
+		}
+	}
+
+	/**
+	 * Get the writer that writes the output files in the background, and create it if it does not exist yet
+	 */
+	public synchronized OutputWriter getOutputWriter() {
+		if (outputWriter == null)
+			outputWriter = new OutputWriter(OUTPUT_QUEUE_SIZE);
+		return outputWriter;
 	}
 	
 	private void realizationOutput(String info, PriceScenarioData[] realization) throws IOException {
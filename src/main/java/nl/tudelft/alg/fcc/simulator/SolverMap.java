@@ -8,6 +8,7 @@ import nl.tudelft.alg.fcc.solution.SolveFromFile;
 import nl.tudelft.alg.fcc.solution.SortommeModel;
 import nl.tudelft.alg.fcc.solution.efel.EFEL_P1;
 import nl.tudelft.alg.fcc.solution.lr.FlexibleLoadLRModel;
+import nl.tudelft.alg.fcc.solution.mip.AggregateStochasticModel;
 import nl.tudelft.alg.fcc.solution.mip.CompactStochasticModel;
 import nl.tudelft.alg.fcc.solution.mip.DeterministicModel;
 import nl.tudelft.alg.fcc.solution.mip.Heuristic;
@@ -26,6 +27,7 @@ public enum SolverMap {
 	IRD(DeterministicModel.class),
 	IRS(StochasticModel.class),
 	IRSC(CompactStochasticModel.class),
+	IRSA(AggregateStochasticModel.class),
 	EFEL(EFEL_P1.class),
 	LR(FlexibleLoadLRModel.class),
 	File(SolveFromFile.class);
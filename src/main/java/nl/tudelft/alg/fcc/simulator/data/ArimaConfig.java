@@ -1,10 +1,10 @@
 package nl.tudelft.alg.fcc.simulator.data;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.prefs.Preferences;
 
-import org.ojalgo.matrix.store.SparseStore;
-
 public class ArimaConfig {
 	final int p, d, q, P, D, Q, S;
 	final double[] a, t, A, T;
@@ -131,7 +131,7 @@ public class ArimaConfig {
 		return withoutSeason;
 	}
 	
-	public KalmanState getKalmanState() {
+	public synchronized KalmanState getKalmanState() {
 		if(kalmanState != null) return kalmanState;
 		kalmanState = new KalmanState(this);
 		return kalmanState;
@@ -139,55 +139,97 @@ public class ArimaConfig {
 	
 	/**
 	 * Kalman Filter based on an ARIMA configuration
+	 * The state space form is a(t+1) = T a(t) + R e(t), y(t) = Z a(t), with
+	 * T the matrix with the AR parameters in the first column and ones on the superdiagonal,
+	 * R = Z' = (1, MA parameters).
+	 * The covariance recursion of the filter does not depend on the data. Therefore the gain at every time step
+	 * is calculated only once, until it converges to the steady-state gain.
 	 */
 	class KalmanState {
 		final int stateLength;
 		final double Q, h;
-		final SparseStore<Double> Tmat, TmatT, Zmat, ZmatT, Rmat, RmatT, Vmat, Tmat2;
+		final double[] phi, z; //the first column of T, and Z
+		private final List<double[]> gains; //the gains from time step 0 on, until the steady-state gain
+		private double[] p; //the (row-major) covariance matrix after the last calculated gain
+		private boolean converged;
 		
 		public KalmanState(ArimaConfig c) {
 			// https://stats.stackexchange.com/questions/202903/start-up-values-for-the-kalman-filter
 			// https://faculty.washington.edu/ezivot/econ584/notes/statespacemodels.pdf
 			stateLength = Math.max(c.p, c.q+1);
-
-			//Setup matrices
-			Tmat = SparseStore.PRIMITIVE.make(stateLength, stateLength);
-			TmatT = SparseStore.PRIMITIVE.make(stateLength, stateLength);
-			for(int i=0; i<c.p; i++) {
-				if(c.a[i] == 0) continue;
-				Tmat.set(i, 0, c.a[i]);
-				TmatT.set(0, i, c.a[i]);
-			}
-			for(int i=0; i<stateLength-1; i++) {
-				Tmat.set(i, i+1, 1.);
-				TmatT.set(i+1, i, 1.);
-			}
-			Tmat2 = SparseStore.PRIMITIVE.make(stateLength, stateLength);
-			Tmat.multiply(Tmat).supplyTo(Tmat2);
-			Zmat = SparseStore.PRIMITIVE.make(1, stateLength);
-			ZmatT = SparseStore.PRIMITIVE.make(stateLength, 1);
-			Zmat.set(0, 0, 1);
-			ZmatT.set(0, 0, 1);
-			for(int i=0; i<c.q; i++) {
-				if(c.t[i] == 0) continue;
-				Zmat.set(0, i+1, c.t[i]);
-				ZmatT.set(i+1, 0, c.t[i]);
-			}
-			Rmat = SparseStore.PRIMITIVE.make(stateLength, 1);
-			RmatT = SparseStore.PRIMITIVE.make(1, stateLength);
-			Rmat.set(0, 0, 1);
-			RmatT.set(0, 0, 1);
-			for(int i=0; i<c.q; i++) {
-				if(c.t[i] == 0) continue; 
-				Rmat.set(i+1, 0, c.t[i]);
-				RmatT.set(0, i+1, c.t[i]);
-			}
+			phi = new double[stateLength];
+			for(int i=0; i<c.p; i++)
+				phi[i] = c.a[i];
+			z = new double[stateLength];
+			z[0] = 1;
+			for(int i=0; i<c.q; i++)
+				z[i+1] = c.t[i];
 			Q = 1;
-			Vmat = SparseStore.PRIMITIVE.make(stateLength, stateLength);
-			Vmat.accept(Rmat.multiply(Q).multiply(RmatT));
 			h = 0;
+			gains = new ArrayList<>();
+			p = new double[stateLength * stateLength];
+			converged = false;
 		}
 		
+		/**
+		 * Get the Kalman gains of the first n time steps, when starting from a zero state and covariance
+		 * @param n the number of time steps
+		 * @return the gain vectors, one per time step. After convergence, the same steady-state gain vector is returned for every time step
+		 */
+		synchronized double[][] getGains(int n) {
+			while(!converged && gains.size() < n)
+				gains.add(nextGain());
+			double[][] result = new double[n][];
+			for(int t=0; t<n; t++)
+				result[t] = gains.get(Math.min(t, gains.size()-1));
+			return result;
+		}
+		
+		/**
+		 * Calculate the gain of the next time step and update the covariance matrix
+		 */
+		private double[] nextGain() {
+			final int m = stateLength;
+			// p_pred = T p T' + R Q R'
+			double[] tp = new double[m * m];
+			for(int i=0; i<m; i++)
+				for(int j=0; j<m; j++)
+					tp[i*m+j] = phi[i] * p[j] + (i+1 < m ? p[(i+1)*m+j] : 0);
+			double[] pPred = new double[m * m];
+			for(int i=0; i<m; i++)
+				for(int j=0; j<m; j++)
+					pPred[i*m+j] = tp[i*m] * phi[j] + (j+1 < m ? tp[i*m+j+1] : 0) + z[i] * Q * z[j];
+			// M = p_pred Z', f = Z M + h
+			double[] M = new double[m];
+			double f = h;
+			for(int i=0; i<m; i++) {
+				for(int j=0; j<m; j++)
+					M[i] += pPred[i*m+j] * z[j];
+				f += z[i] * M[i];
+			}
+			// p_upd = p_pred - M Z p_pred / f
+			double[] zp = new double[m];
+			for(int j=0; j<m; j++)
+				for(int i=0; i<m; i++)
+					zp[j] += z[i] * pPred[i*m+j];
+			for(int i=0; i<m; i++)
+				for(int j=0; j<m; j++)
+					pPred[i*m+j] -= M[i] * zp[j] / f;
+			p = pPred;
+			double[] gain = new double[m];
+			for(int i=0; i<m; i++)
+				gain[i] = M[i] / f;
+			if(!gains.isEmpty()) {
+				double[] last = gains.get(gains.size()-1);
+				double diff = 0, max = 0;
+				for(int i=0; i<m; i++) {
+					diff = Math.max(diff, Math.abs(gain[i] - last[i]));
+					max = Math.max(max, Math.abs(gain[i]));
+				}
+				converged = diff <= 1e-14 * Math.max(1, max);
+			}
+			return gain;
+		}
 	}
 
 	public void setMarkovConfig(MarkovConfig markovConfig) {
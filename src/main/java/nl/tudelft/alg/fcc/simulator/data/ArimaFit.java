@@ -0,0 +1,151 @@
+package nl.tudelft.alg.fcc.simulator.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.IntToDoubleFunction;
+
+import nl.tudelft.alg.fcc.model.PriceScenarioData;
+import nl.tudelft.alg.fcc.utils.Utils;
+
+/**
+ * The parts of the ARIMA scenario generation that only depend on the realization data,
+ * so that they can be reused by every rolling horizon step:
+ * 1) the extreme prices of every scenario from any time step to the end of the data
+ * 2) the Box-Cox parameters of every scenario
+ * One ArimaFit is kept per realization data object, for as long as that object is in use
+ */
+class ArimaFit {
+	private static final Map<PriceScenarioData, ArimaFit> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+	// the maximum down price and minimum up price of every scenario from any time step to the end
+	private final SuffixExtreme[] maxDown, minUp;
+	private final double[][] lambdaDown, lambdaUp;
+
+	/**
+	 * Get the fit of a realization data set. The fit is calculated on first use
+	 */
+	static ArimaFit get(PriceScenarioData data) {
+		return cache.computeIfAbsent(data, ArimaFit::new);
+	}
+
+	/**
+	 * Calculate the extreme prices of the data. The fit does not keep a reference to the data, so that it does not keep the data from being collected
+	 */
+	private ArimaFit(PriceScenarioData data) {
+		final int nScenarios = data.getNScenarios();
+		final int nTimeSteps = data.getNTimeSteps();
+		maxDown = new SuffixExtreme[nScenarios];
+		minUp = new SuffixExtreme[nScenarios];
+		for (int i = 0; i < nScenarios; i++) {
+			final int s = i;
+			maxDown[i] = new SuffixExtreme(nTimeSteps, t -> data.getDownPrice(t, s));
+			minUp[i] = new SuffixExtreme(nTimeSteps, t -> -data.getUpPrice(t, s));
+		}
+		lambdaDown = new double[nScenarios][];
+		lambdaUp = new double[nScenarios][];
+	}
+
+	/**
+	 * @return the maximum down price of scenario i from time step t to the end of the data
+	 */
+	double getMaxDown(int i, int t) {
+		return maxDown[i].get(t);
+	}
+
+	/**
+	 * @return the minimum up price of scenario i from time step t to the end of the data
+	 */
+	double getMinUp(int i, int t) {
+		return -minUp[i].get(t);
+	}
+
+	/**
+	 * Get the Box-Cox parameters {lambda1, lambda2} of the down price of scenario i.
+	 * They are fitted on first use, relative to the maximum down price given then
+	 */
+	synchronized double[] getDownLambdas(PriceScenarioData data, int i, double maxdown) {
+		if (lambdaDown[i] == null)
+			lambdaDown[i] = fitLambdas(data, i, maxdown, data::getDownPrice);
+		return lambdaDown[i];
+	}
+
+	/**
+	 * Get the Box-Cox parameters {lambda1, lambda2} of the up price of scenario i.
+	 * They are fitted on first use, relative to the minimum up price given then
+	 */
+	synchronized double[] getUpLambdas(PriceScenarioData data, int i, double minup) {
+		if (lambdaUp[i] == null)
+			lambdaUp[i] = fitLambdas(data, i, minup, data::getUpPrice);
+		return lambdaUp[i];
+	}
+
+	/**
+	 * Fit the Box-Cox parameters on the distance of every price of scenario i to the extreme price
+	 */
+	private static double[] fitLambdas(PriceScenarioData data, int i, double extreme, PriceGetter price) {
+		final int nTimeSteps = data.getNTimeSteps();
+		// Find the distance of every price to the extreme price in that scenario
+		double[] values = new double[nTimeSteps];
+		for (int t = 0; t < nTimeSteps; t++)
+			values[t] = Math.abs(extreme - price.get(t, i)) + 1e-5;
+		// Find the left bound mu-0.75*std
+		double leftbound = Utils.avg(values) - 0.75 * Utils.std(values);
+		// All values lower than the leftbound are set to the leftbound
+		for (int t = 0; t < nTimeSteps; t++)
+			values[t] = Math.max(values[t], leftbound);
+		// Use the findLambda procedures to find the BoxCox parameters
+		double lambda2 = ArimaGenerator.findLambda2(values);
+		for (int t = 0; t < nTimeSteps; t++)
+			values[t] += lambda2;
+		double lambda1 = ArimaGenerator.findLambda1(values);
+		return new double[] { lambda1, lambda2 };
+	}
+
+	private interface PriceGetter {
+		double get(int t, int i);
+	}
+
+	/**
+	 * The maximum of a series from any time step to the end of the series.
+	 * Only the time steps at which the maximum changes (when walking back from the end) are stored
+	 */
+	private static class SuffixExtreme {
+		final int[] steps; // increasing time steps
+		final double[] values; // the decreasing maximum from every step in steps
+
+		SuffixExtreme(int nTimeSteps, IntToDoubleFunction series) {
+			int[] steps = new int[16];
+			double[] values = new double[16];
+			int n = 0;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int t = nTimeSteps - 1; t >= 0; t--) {
+				double v = series.applyAsDouble(t);
+				if (v <= max) continue;
+				max = v;
+				if (n == steps.length) {
+					steps = Arrays.copyOf(steps, 2 * n);
+					values = Arrays.copyOf(values, 2 * n);
+				}
+				steps[n] = t;
+				values[n++] = v;
+			}
+			this.steps = new int[n];
+			this.values = new double[n];
+			for (int k = 0; k < n; k++) {
+				this.steps[k] = steps[n - 1 - k];
+				this.values[k] = values[n - 1 - k];
+			}
+		}
+
+		/**
+		 * @return the maximum of the series from time step t to the end
+		 */
+		double get(int t) {
+			int k = Arrays.binarySearch(steps, t);
+			if (k < 0) k = -k - 1;
+			return values[k];
+		}
+	}
+}
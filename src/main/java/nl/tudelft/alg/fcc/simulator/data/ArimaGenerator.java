@@ -1,8 +1,8 @@
 package nl.tudelft.alg.fcc.simulator.data;
 
 import java.util.Arrays;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.stream.IntStream;
 
 import org.apache.commons.math3.analysis.UnivariateFunction;
@@ -11,9 +11,6 @@ import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.univariate.BrentOptimizer;
 import org.apache.commons.math3.optim.univariate.SearchInterval;
 import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
-import org.ojalgo.matrix.store.MatrixStore;
-import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.matrix.store.SparseStore;
 
 import nl.tudelft.alg.fcc.model.PriceScenarioData;
 import nl.tudelft.alg.fcc.simulator.Config;
@@ -31,9 +28,14 @@ public class ArimaGenerator extends DataGenerator {
 	@Override
 	public PriceScenarioData generate(Config config, int offset, Data real, Data distr, int nResultScenarios) throws InvalidConfigurationException {
 		PriceScenarioData dData = distr.getMarket().getPricedata();
-		PriceScenarioData rData = real.getMarket().getNScenarios() <=  nResultScenarios 
-				? real.getMarket().getPricedata() 
-				: real.getMarket().getPricedata().getRandomSubset(nResultScenarios, random);
+		PriceScenarioData source = real.getMarket().getPricedata();
+		int[] scenarios = IntStream.range(0, source.getNScenarios()).toArray();
+		if (scenarios.length > nResultScenarios) {
+			Utils.shuffle(scenarios, random);
+			scenarios = Arrays.copyOfRange(scenarios, 0, nResultScenarios);
+		}
+		PriceScenarioData rData = scenarios.length < source.getNScenarios() ? source.filter(scenarios) : source;
+		ArimaFit fit = ArimaFit.get(source);
 		int nRealScenarios = rData.getNScenarios();
 		int startT = real.getLoads().getFirstT() + Math.max(0, offset);
 		int baseT = Math.max(0, startT - (int)((24.0 / config.ptu) * 14.0));
@@ -53,17 +55,23 @@ public class ArimaGenerator extends DataGenerator {
 		double[][] downptu = new double[endT-baseT][nResultScenarios];
 		double[][] upptu = new double[endT-baseT][nResultScenarios];
 		
-		double[] maxdown = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> IntStream.range(baseT, rData.getNTimeSteps()).mapToDouble(t -> rData.getDownPrice(t, i)).max().getAsDouble()).toArray();
-		double[] minup = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> IntStream.range(baseT, rData.getNTimeSteps()).mapToDouble(t -> rData.getUpPrice(t, i)).min().getAsDouble()).toArray();
+		final int[] sourceScenarios = scenarios;
+		double[] maxdown = Arrays.stream(sourceScenarios).mapToDouble(s -> fit.getMaxDown(s, baseT)).toArray();
+		double[] minup = Arrays.stream(sourceScenarios).mapToDouble(s -> fit.getMinUp(s, baseT)).toArray();
 		
 		final double probr = 1.0;
 		final double probd = 1.0 - probr;
 	
-		calculcateLambdas(rData, maxdown, minup);
-		double[] lambda1down = (double[]) rData.getExtraData("ld1");
-		double[] lambda2down = (double[]) rData.getExtraData("ld2");
-		double[] lambda1up = (double[]) rData.getExtraData("lu1");
-		double[] lambda2up = (double[]) rData.getExtraData("lu2");
+		double[] lambda1down = new double[nRealScenarios], lambda2down = new double[nRealScenarios];
+		double[] lambda1up = new double[nRealScenarios], lambda2up = new double[nRealScenarios];
+		for (int i = 0; i < nRealScenarios; i++) {
+			double[] ld = fit.getDownLambdas(source, sourceScenarios[i], maxdown[i]);
+			double[] lu = fit.getUpLambdas(source, sourceScenarios[i], minup[i]);
+			lambda1down[i] = ld[0];
+			lambda2down[i] = ld[1];
+			lambda1up[i] = lu[0];
+			lambda2up[i] = lu[1];
+		}
 
 		for (int t=baseT; t<dData.getNTimeSteps(); t++) { 
 			for (int i = 0; i < nResultScenarios; i++) {
@@ -111,45 +119,13 @@ public class ArimaGenerator extends DataGenerator {
 		return nData;
 	}
 	
-	private void calculcateLambdas(PriceScenarioData rData, double[] maxdown, double[] minup) {
-		// Use all data to estimate lambda parameters
-		if(rData.getExtraData("ld1") == null || rData.getExtraData("ld2") == null) {
-   		// Find the distance of every price to the maximum down price in that scenario
-   		double[][] __alldown = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> Math.abs(maxdown[i] - rData.getDownPrice(t, i)) + 1e-5).toArray()).toArray(double[][]::new);
-   		// Find the left bound mu-0.75*std
-   		double[] leftbounddown = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> Utils.avg(__alldown[i]) - 0.75 * Utils.std(__alldown[i])).toArray();		
-   		// All values lower than the leftbound are set to the leftbound
-   		double[][] _alldown = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> Math.max(__alldown[i][t], leftbounddown[i])).toArray()).toArray(double[][]::new);
-   		// Use the findLambda procedures to find the BoxCox parameters
-   		double[] lambda2down = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> findLambda2(_alldown[i])).toArray();
-   		double[][] alldown = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> _alldown[i][t] + lambda2down[i]).toArray()).toArray(double[][]::new);
-   		double[] lambda1down = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> findLambda1(alldown[i])).toArray();
-   		rData.addExtraData("ld1", lambda1down);
-   		rData.addExtraData("ld2", lambda2down);
-		}
-		if(rData.getExtraData("lu1") == null || rData.getExtraData("lu2") == null) {
-			// Find the distance of every price to the minimum up price in that scenario
-			double[][] __allup = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> Math.abs(minup[i] - rData.getUpPrice(t, i)) + 1e-5).toArray()).toArray(double[][]::new);
-			// Find the left bound mu-0.75*std
-			double[] leftboundup = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> Utils.avg(__allup[i]) - 0.75 * Utils.std(__allup[i])).toArray();
-			// All values lower than the leftbound are set to the leftbound
-			double[][] _allup = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> Math.max(__allup[i][t], leftboundup[i])).toArray()).toArray(double[][]::new);
-			// Use the findLambda procedures to find the BoxCox parameters
-			double[] lambda2up = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> findLambda2(_allup[i])).toArray();
-   		double[][] allup = IntStream.range(0, rData.getNScenarios()).mapToObj(i -> IntStream.range(0, rData.getNTimeSteps()).mapToDouble(t -> _allup[i][t] + lambda2up[i]).toArray()).toArray(double[][]::new);
-   		double[] lambda1up = IntStream.range(0, rData.getNScenarios()).mapToDouble(i -> findLambda1(allup[i])).toArray();
-   		rData.addExtraData("lu1", lambda1up);
-   		rData.addExtraData("lu2", lambda2up);
-		}
-	}
-	
 	/**
 	 * Find the optimal BoxCox parameter for values
 	 * See Box, G. E. P. and Cox, D. R. (1964). An analysis of transformations, Journal of the Royal Statistical Society, Series B, 26, 211-252
 	 * @param values the series to find the Box-Cox parameter for
 	 * @return the Box-Cox parameter
 	 */
-	private double findLambda1(double[] values) {
+	static double findLambda1(double[] values) {
 		BrentOptimizer solver = new BrentOptimizer(1e-10, 1e-14);
       return solver.optimize(new MaxEval(100),
             new BoxCoxLLF(values),
@@ -157,7 +133,7 @@ public class ArimaGenerator extends DataGenerator {
             new SearchInterval(-5, 5)).getPoint();
 	}
 	
-	private double findLambda2(double[] values) {
+	static double findLambda2(double[] values) {
 		return 0;
 	}
 	
@@ -283,6 +259,8 @@ public class ArimaGenerator extends DataGenerator {
 
 	/**
 	 * Create a scenario by forecasting according to an ARIMA configuration
+	 * The scenarios are generated in parallel. For every scenario, (scenarioFactor) candidates are generated and the one
+	 * closest to the original series (see getError) is kept
 	 * @param config the ARIMA configuration
 	 * @param data the data to be transformed
 	 * @param scenarioFactor the ratio of scenarios to be generated in comparison to the number of scenarios to return
@@ -346,41 +324,35 @@ public class ArimaGenerator extends DataGenerator {
 		System.arraycopy(values, startT, oldValues, 0, nTimesteps-startT);
 		oldValues = Utils.deepArrayCopy(oldValues);
 		scenarioFactor = nResultScenarios > 1 ? scenarioFactor : 1;
-		PriorityQueue<QueueEntry> scenarioQueue = new PriorityQueue<QueueEntry>(nResultScenarios);
-		for (int _i = 0; _i < nResultScenarios * scenarioFactor; _i++) {
-			final int i = (_i < nResultScenarios ? _i : scenarioQueue.poll().value);
-			for (int t = startT; t < nTimesteps; t++) {
-				error[t][i] = random.nextGaussian() * config.std;
-				double v = error[t][i];
-				for (int a = 1; a <= config.p; a++)
-					v += config.a[a - 1] * values[t - a][i];
-				for (int a = 1; a <= config.P; a++) {
-					v += config.A[a - 1] * values[t - a * S][i];
-					for (int b = 1; b <= config.p; b++)
-						v -= config.A[a - 1] * config.a[b - 1] * values[t - a * S - b][i];
-				}
-
-				for (int a = 1; a <= config.q; a++)
-					v += config.t[a - 1] * error[t - a][i];
-				for (int a = 1; a <= config.Q; a++) {
-					v += config.T[a - 1] * error[t - a * S][i];
-					for (int b = 1; b <= config.q; b++)
-						v += config.T[a - 1] * config.t[b - 1] * error[t - a * S - b][i];
+		// Generate every scenario independently, from its own random streams
+		final long seed = random.nextLong();
+		final double[][] _values = values, _oldValues = oldValues;
+		final ArimaConfig c = config;
+		final double _limit = limit;
+		final int nCandidates = (int) Math.ceil(nResultScenarios * scenarioFactor);
+		IntStream.range(0, nResultScenarios).parallel().forEach(i -> {
+			final int n = getNCandidates(nCandidates, nResultScenarios, i);
+			double[] history = column(_values, i, 0, nTimesteps);
+			double[] historyError = column(error, i, 0, nTimesteps);
+			double[] old = column(_oldValues, i, 0, nTimesteps - startT);
+			double[] best = null, bestError = null;
+			double bestScore = Double.POSITIVE_INFINITY;
+			for (int k = 0; k < n; k++) {
+				Random pathRandom = getPathRandom(seed, i, k);
+				double[] v = history.clone(), e = historyError.clone();
+				forecastPath(c, v, e, startT, _limit, pathRandom);
+				double score = n > 1 ? getError(pathRandom, v, old, startT, c.std) : 0;
+				if (best == null || score < bestScore) {
+					best = v;
+					bestError = e;
+					bestScore = score;
 				}
-
-				values[t][i] = Math.max(-limit, Math.min(limit, v));
-				if(Double.isNaN(v) ) {
-					final int ix = i;
-					System.out.println("error: " +Arrays.toString(Arrays.stream(error).mapToDouble(e -> e[ix]).toArray()));
-					System.out.println("value: " +Arrays.toString(Arrays.stream(values).mapToDouble(e -> e[ix]).toArray()));
-					System.out.println("t: " + t);
-				}
-				assert !Double.isNaN(v);
 			}
-			if(scenarioFactor > 1) {
-				scenarioQueue.add(new QueueEntry(getError(random, values, oldValues, startT, i, config.std), i));
+			for (int t = startT; t < nTimesteps; t++) {
+				_values[t][i] = best[t];
+				error[t][i] = bestError[t];
 			}
-		}		
+		});
 		// inverse differencing
 		for (int d = config.d - 1; d >= 0; d--) {
 			values = inverseDifference(values, nTimesteps, 1, S * config.D + d + 1);
@@ -399,21 +371,96 @@ public class ArimaGenerator extends DataGenerator {
 		}
 	}
 
+	/**
+	 * Forecast one scenario according to an ARIMA configuration
+	 * @param config the ARIMA configuration
+	 * @param values the series of the scenario, known up to startT. The forecast is written from startT on
+	 * @param error the error series of the scenario, known up to startT. The generated errors are written from startT on
+	 * @param startT the beginning of the forecast
+	 * @param limit the extreme values to use as cut-off
+	 * @param random the random generator of this scenario
+	 */
+	private static void forecastPath(ArimaConfig config, double[] values, double[] error, int startT, double limit, Random random) {
+		final int S = config.S;
+		for (int t = startT; t < values.length; t++) {
+			error[t] = random.nextGaussian() * config.std;
+			double v = error[t];
+			for (int a = 1; a <= config.p; a++)
+				v += config.a[a - 1] * values[t - a];
+			for (int a = 1; a <= config.P; a++) {
+				v += config.A[a - 1] * values[t - a * S];
+				for (int b = 1; b <= config.p; b++)
+					v -= config.A[a - 1] * config.a[b - 1] * values[t - a * S - b];
+			}
+
+			for (int a = 1; a <= config.q; a++)
+				v += config.t[a - 1] * error[t - a];
+			for (int a = 1; a <= config.Q; a++) {
+				v += config.T[a - 1] * error[t - a * S];
+				for (int b = 1; b <= config.q; b++)
+					v += config.T[a - 1] * config.t[b - 1] * error[t - a * S - b];
+			}
+
+			values[t] = Math.max(-limit, Math.min(limit, v));
+			if(Double.isNaN(v)) {
+				System.out.println("error: " +Arrays.toString(error));
+				System.out.println("value: " +Arrays.toString(values));
+				System.out.println("t: " + t);
+			}
+			assert !Double.isNaN(v);
+		}
+	}
+
+	/**
+	 * Get the number of candidates to generate for one scenario, when the candidates are divided evenly over the scenarios
+	 * @param nCandidates the total number of candidates
+	 * @param nScenarios the number of scenarios
+	 * @param i the scenario
+	 * @return the number of candidates for scenario i (at least one)
+	 */
+	static int getNCandidates(int nCandidates, int nScenarios, int i) {
+		int extra = Math.max(0, nCandidates - nScenarios);
+		return 1 + extra / nScenarios + (i < extra % nScenarios ? 1 : 0);
+	}
+
+	/**
+	 * Get the random generator of one candidate of one scenario, so that the generated scenarios do not depend
+	 * on the order in which (or the thread on which) they are generated
+	 * @param seed the seed of this generation
+	 * @param scenario the scenario
+	 * @param candidate the candidate
+	 * @return a new random generator
+	 */
+	static Random getPathRandom(long seed, int scenario, int candidate) {
+		long s = seed;
+		for (int key : new int[] { scenario, candidate })
+			s = new SplittableRandom(s ^ (0x9E3779B97F4A7C15L * (key + 1))).nextLong();
+		return new Random(s);
+	}
+
+	/**
+	 * @return the values of one scenario from time step startT to endT
+	 */
+	static double[] column(double[][] data, int scenario, int startT, int endT) {
+		double[] result = new double[endT - startT];
+		for (int t = startT; t < endT; t++)
+			result[t - startT] = data[t][scenario];
+		return result;
+	}
+
 	/**
 	 * Calculate the error for a generated scenario in the data set. The error is calculated by summing
 	 * 1) the weighted MAE for every data point in the series
 	 * 2) the error of the weighted summed series
 	 * The weight of a data point at time step t is 1.0-t/N and is 0 if t >= N
 	 * @param random the random number seed
-	 * @param values the generated values
-	 * @param oldValues the original values which are used to compare the generated scenario with 
+	 * @param values the generated values of the scenario
+	 * @param oldValues the original values of the scenario from startT on, which are used to compare the generated scenario with 
 	 * @param startT the start time step for calculating the error
-	 * @param scenario the scenario to calculate the error for
 	 * @param std the standard deviation that should be used to generate random data if the generated data series is shorter than N (N=24)
 	 * @return the error measure
 	 */
-	protected static double getError(Random random, double[][] values, double[][] oldValues, 
-			final int startT, final int scenario, final double std) {
+	protected static double getError(Random random, double[] values, double[] oldValues, final int startT, final double std) {
 		final int N = 24;
 		int n = Math.min(N, values.length - startT);
 		double[] weights = IntStream.range(0, N).mapToDouble(t -> 1.0 - t/N).toArray();
@@ -421,7 +468,7 @@ public class ArimaGenerator extends DataGenerator {
 		for(int i = 0; i<N; i++)
 			weights[i] /= sum;
 		double[] vs = new double[N];
-		for(int i=0; i<n; i++) vs[i] = values[startT + i][scenario] - oldValues[i][scenario];
+		for(int i=0; i<n; i++) vs[i] = values[startT + i] - oldValues[i];
 		for(int i=n; i<N; i++) vs[i] = random.nextGaussian() * std - random.nextGaussian() * std;
 		double abserror = IntStream.range(0, N).mapToDouble(t -> weights[t] * Math.abs(vs[t])).sum();
 		double sumerror = Math.abs(IntStream.range(0, N).mapToDouble(t -> weights[t] * vs[t]).sum());
@@ -444,19 +491,27 @@ public class ArimaGenerator extends DataGenerator {
 		final int nResultScenarios = value[0].length;
 		ArimaConfig.KalmanState ks = c.getKalmanState();
 		int nTimesteps = begin-startT;
-		for(int s=0; s<nRealScenarios; s++) {
-			MatrixStore<Double>[] a_upd = IntStream.range(0, nTimesteps+1).mapToObj(i -> PrimitiveDenseStore.FACTORY.makeZero(ks.stateLength, 1)).toArray(PrimitiveDenseStore[]::new);
-			MatrixStore<Double> p_upd = PrimitiveDenseStore.FACTORY.makeZero(ks.stateLength, ks.stateLength);
-			for(int t=0; t<nTimesteps;t++) {
-   			MatrixStore<Double> a_pred = ks.Tmat.multiply(a_upd[t]);
-   			MatrixStore<Double> p_pred = ks.Tmat.multiply(p_upd).multiply(ks.TmatT).add(ks.Vmat);
-   			error[t+startT][s] = value[t+startT][s] - ks.Zmat.multiply(a_pred).get(0, 0);
-   			SparseStore<Double> M = SparseStore.PRIMITIVE.make(ks.stateLength, 1);
-   			p_pred.multiply(ks.ZmatT, M);
-   			double f = ks.Zmat.multiply(M).get(0, 0) + ks.h;
-   			a_upd[t+1] = a_pred.add(M.multiply(error[t+startT][s] / f));
-   			p_upd = p_pred.subtract(M.multiply(ks.Zmat).multiply(p_pred).multiply(1.0/f));
-   		}
+		final int m = ks.stateLength;
+		final double[] phi = ks.phi, z = ks.z;
+		double[][] gains = ks.getGains(nTimesteps);
+		// the updated states of all scenarios, the state of scenario s is stored at s*m to (s+1)*m
+		double[] state = new double[nRealScenarios * m];
+		for(int t=0; t<nTimesteps;t++) {
+			final double[] gain = gains[t];
+			final double[] y = value[t+startT], e = error[t+startT];
+			for(int s=0, o=0; s<nRealScenarios; s++, o+=m) {
+				// a_pred = T a_upd, in place
+				double a0 = state[o];
+				double pred = 0;
+				for(int k=0; k<m; k++) {
+					state[o+k] = phi[k] * a0 + (k+1 < m ? state[o+k+1] : 0);
+					pred += z[k] * state[o+k];
+				}
+				e[s] = y[s] - pred;
+				// a_upd = a_pred + gain * error
+				for(int k=0; k<m; k++)
+					state[o+k] += gain[k] * e[s];
+			}
 		}
 		
 		for(int s=nRealScenarios; s<nResultScenarios; s++) {
@@ -469,7 +524,7 @@ public class ArimaGenerator extends DataGenerator {
 	/**
 	 * The Box-Cox Log-likelihood function
 	 */
-	private class BoxCoxLLF extends UnivariateObjectiveFunction {
+	private static class BoxCoxLLF extends UnivariateObjectiveFunction {
 
 		public BoxCoxLLF(double[] data) {
 			// From https://docs.scipy.org/doc/scipy/reference/generated/scipy.stats.boxcox_llf.html
@@ -496,25 +551,4 @@ public class ArimaGenerator extends DataGenerator {
 		}
 		
 	}
-	
-	public class QueueEntry implements Comparable<QueueEntry> {
-	    private double key;
-	    private int value;
-
-	    public QueueEntry(double key, int value) {
-	        this.key = key;
-	        this.value = value;
-	    }
-
-	    @Override
-	    public int compareTo(QueueEntry other) {
-	        return Double.compare(other.key, key);
-	    }
-	    
-	    @Override
-	   public String toString() {
-	   	return Integer.toString(value) + ": " + Double.toString(key);
-	   }
-	}
-
 }
@@ -18,8 +18,8 @@ import nl.tudelft.alg.fcc.model.PerMinuteData;
 import nl.tudelft.alg.fcc.model.PriceScenarioData;
 import nl.tudelft.alg.fcc.simulator.Config;
 import nl.tudelft.alg.fcc.utils.CSVReader;
+import nl.tudelft.alg.fcc.utils.PriceDataCache;
 import nl.tudelft.alg.fcc.utils.ProblemImporter;
-import nl.tudelft.alg.fcc.utils.Utils;
 
 public class Data {
 	Market market;
@@ -79,11 +79,14 @@ public class Data {
 	 * @throws FileNotFoundException throws an IOException when any of the files could not be successfully read
 	 */
 	private static Market readMarket(Config config) throws IOException {
-		Utils.setDateFormat(config.dateformat);
 		String apxpricefile = Paths.get(config.pricedataFolder, "da.csv").toString();
-		DAPrice apxPrice = ProblemImporter.importDAPrices(apxpricefile);
-		PerMinuteData perMinuteData = config.perMinute ? ProblemImporter.importPerMinuteImbalance(config.pricedataFolder, config.ptuLength) : null;
-		PriceScenarioData priceData = ProblemImporter.importPriceScenarioData(apxPrice, config.pricedataFolder, config.ptuLength, config.capacityMarket);
+		DAPrice apxPrice = config.priceDataCache ? null : ProblemImporter.importDAPrices(apxpricefile, config.dateformat);
+		PerMinuteData perMinuteData = !config.perMinute ? null : config.priceDataCache
+				? PriceDataCache.importPerMinuteImbalance(config.pricedataFolder, config.ptuLength)
+				: ProblemImporter.importPerMinuteImbalance(config.pricedataFolder, config.ptuLength);
+		PriceScenarioData priceData = config.priceDataCache
+				? PriceDataCache.importPriceScenarioData(config.pricedataFolder, config.dateformat, config.ptuLength, config.capacityMarket)
+				: ProblemImporter.importPriceScenarioData(apxPrice, config.pricedataFolder, config.ptuLength, config.capacityMarket);
 		return new Market(config, priceData, perMinuteData);
 	}
 
@@ -1,7 +1,7 @@
 package nl.tudelft.alg.fcc.simulator.data;
 
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 import nl.tudelft.alg.fcc.utils.Utils;
 
@@ -29,49 +29,57 @@ public class MarkovPTUGenerator {
 		System.arraycopy(input, startT, oldValues, 0, input.length-startT);
 		oldValues = Utils.deepArrayCopy(oldValues);
 		scenarioFactor = nResultScenarios > 1 ? scenarioFactor : 1;
-		PriorityQueue<QueueEntry> scenarioQueue = new PriorityQueue<QueueEntry>(nResultScenarios);
 		
+		// Generate every scenario independently, from its own random streams
+		final long seed = random.nextLong();
+		final double[][] _oldValues = oldValues;
+		final int nCandidates = (int) Math.ceil(nResultScenarios * scenarioFactor);
+		IntStream.range(0, nResultScenarios).parallel().forEach(i -> {
+			final int n = ArimaGenerator.getNCandidates(nCandidates, nResultScenarios, i);
+			double[] history = ArimaGenerator.column(input, i, 0, input.length);
+			double[] old = ArimaGenerator.column(_oldValues, i, 0, _oldValues.length);
+			double[] best = null;
+			double bestScore = Double.POSITIVE_INFINITY;
+			for (int k = 0; k < n; k++) {
+				Random pathRandom = ArimaGenerator.getPathRandom(seed, i, k);
+				double[] v = history.clone();
+				generatePath(v, realStartT, startT, totalT, PTUsPerDay, pathRandom, probs);
+				double score = n > 1 ? ArimaGenerator.getError(pathRandom, v, old, startT, 0.5) : 0;
+				if (best == null || score < bestScore) {
+					best = v;
+					bestScore = score;
+				}
+			}
+			for (int t = startT; t < input.length; t++)
+				input[t][i] = best[t];
+		});
+	}
+	
+	/**
+	 * Generate one series for the reserve deployment percentages based on a Markov process
+	 * @param values the original series of one scenario. The generated series is written from startT on
+	 * @param realStartT the real beginning time step of the series
+	 * @param startT the beginning time step of the series
+	 * @param totalT the total number of time steps in the data set
+	 * @param PTUsPerDay the number of PTUs in one day
+	 * @param random the random generator of this scenario
+	 * @param probs the matrix with transition probabilities with indices: period of the year, time of the day, current reserve usage, next reserve usage 
+	 */
+	private static void generatePath(double[] values, int realStartT, int startT, int totalT, int PTUsPerDay, Random random, int[][][][] probs) {
 		int nPeriods = probs.length;
 		int blocksize = probs[0].length;
 		int resolution = probs[0][0].length-1;
-		for (int _i = 0; _i < nResultScenarios * scenarioFactor; _i++) {
-			final int i = (_i < nResultScenarios ? _i : scenarioQueue.poll().value);
-			for(int t=startT;t<input.length; t++) {
-				int realT = realStartT - startT + t;
-				int h = (realT / (PTUsPerDay / blocksize)) % blocksize;
-				int p = (realT / (totalT / nPeriods)) % nPeriods;
-				int current = (int) Math.round(input[t-1][i] * resolution);
-				int probsum = Utils.sum(probs[p][h][current]);
-				if(probsum == 0) input[t][i] = 0.0;
-				else {
-					input[t][i] = Utils.weightedChoice(random, probs[p][h][current]) / ((double) resolution);
-				}
-			}
-			if(scenarioFactor > 1) {
-				double error = ArimaGenerator.getError(random, input, oldValues, startT, i, 0.5);
-				scenarioQueue.add(new QueueEntry(error, i));
+		for(int t=startT;t<values.length; t++) {
+			int realT = realStartT - startT + t;
+			int h = (realT / (PTUsPerDay / blocksize)) % blocksize;
+			int p = (realT / (totalT / nPeriods)) % nPeriods;
+			int current = (int) Math.round(values[t-1] * resolution);
+			int probsum = Utils.sum(probs[p][h][current]);
+			if(probsum == 0) values[t] = 0.0;
+			else {
+				values[t] = Utils.weightedChoice(random, probs[p][h][current]) / ((double) resolution);
 			}
 		}
 	}
 	
-	static class QueueEntry implements Comparable<QueueEntry> {
-	    private double key;
-	    private int value;
-
-	    public QueueEntry(double key, int value) {
-	        this.key = key;
-	        this.value = value;
-	    }
-
-	    @Override
-	    public int compareTo(QueueEntry other) {
-	        return Double.compare(other.key, key);
-	    }
-	    
-	    @Override
-	   public String toString() {
-	   	return Integer.toString(value) + ": " + Double.toString(key);
-	   }
-	}
-	
 }
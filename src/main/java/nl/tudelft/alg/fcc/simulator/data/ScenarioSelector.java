@@ -211,7 +211,7 @@ public class ScenarioSelector extends MIP {
 			solver.solve();
 		} catch (SolverException e) {
 			System.out.println("Error in selecting scenarios. Defaulting to random scenarios");
-			return data.getRandomSubset(nScenarios, Utils.random);
+			return data.getRandomSubset(nScenarios, Utils.getRandom());
 		}
 		
 		return data.filter(selector.selection.scenarios);
@@ -2,6 +2,8 @@ package nl.tudelft.alg.fcc.solution;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 
 import nl.tudelft.alg.MipSolverCore.ISolver;
@@ -29,9 +31,11 @@ public class CurveApproxModel implements ISolveModel {
 	public void initialize(ISolver solver) {}
 	
 	/**
-	 * Combine two partial solutions (curves) into one solution
+	 * Combine two partial solutions (curves) into one solution. A null curve is an empty partial solution
 	 */
 	private Curve combineCurves(Curve curve, Curve curve2) {
+		if (curve == null) return curve2;
+		if (curve2 == null) return curve;
 		return curve.combine(curve2);
 	}
 
@@ -46,11 +50,11 @@ public class CurveApproxModel implements ISolveModel {
 		Market market = problem.getMarket();
 		double[] imb = new double[mPTU + 1];
 		double[] cost = new double[mPTU + 1];
-		Double[] down = new Double[mPTU + 1];
-		Double[] up = new Double[mPTU + 1];
+		double[] down = new double[mPTU + 1];
+		double[] up = new double[mPTU + 1];
 		Arrays.fill(cost, Double.POSITIVE_INFINITY);
-		Arrays.fill(up, null);
-		Arrays.fill(down, null);
+		Arrays.fill(up, Double.NaN);
+		Arrays.fill(down, Double.NaN);
 		if (dec.rcd[e][t] > E) {			
 			int[] scenarios = IntStream.range(0, market.getNScenarios()).filter(i -> market.getDownRegulatingPrice(t, i) <= dec.bd[e][t]).toArray();
 			double probsum = Arrays.stream(scenarios).mapToDouble(i -> market.getScenarioProbability(i)).sum();
@@ -91,11 +95,11 @@ public class CurveApproxModel implements ISolveModel {
 		double eSum = 0;
 		double[] cost = new double[mPTU + 1];
 		double[] imb = new double[mPTU + 1];
-		Double[] down = new Double[mPTU + 1];
-		Double[] up = new Double[mPTU + 1];
+		double[] down = new double[mPTU + 1];
+		double[] up = new double[mPTU + 1];
 		Arrays.fill(imb, 0);
-		Arrays.fill(down, null);
-		Arrays.fill(up, null);
+		Arrays.fill(down, Double.NaN);
+		Arrays.fill(up, Double.NaN);
 		int i = 1;
 		double cap = 1.0 / mPTU;
 		if(problem.getConfig().hasReserves()) {
@@ -110,7 +114,7 @@ public class CurveApproxModel implements ISolveModel {
    				down[i] = market.getDownRegulatingPrice(t, sx);
    				if (getExpectedPrice(t, cap) <= cost[i]) { //If imbalance charging is cheaper, don't provide reserves
    					cost[i] = getExpectedPrice(t, cap);
-   					down[i] = null;
+   					down[i] = Double.NaN;
    					imb[i] = cap;
    				}
    				i++; 
@@ -137,7 +141,7 @@ public class CurveApproxModel implements ISolveModel {
    			double expcost = getExpectedPrice(t, 1) - sum / s * (1-prob); 
    			if(cost[i] > expcost) {	
    				cost[i] = expcost; //Calculate the expected costs
-   				down[i] = null;
+   				down[i] = Double.NaN;
    				up[i] = market.getUpRegulatingPrice(t, sx);
    				imb[i] = 1;
    			}
@@ -149,8 +153,7 @@ public class CurveApproxModel implements ISolveModel {
 	
 	private double getExpectedPrice(int t, double amount)  {
 		int h = problem.getMarket().PTUtoH(t);
-		double avgChgSpeed = Arrays.stream(problem.getLoads().getLoads()).filter(l -> l.isAvailable(t+problem.getStartT()))
-			.mapToDouble(l -> l.getChargingSpeed(t+problem.getStartT())).average().orElse(0);
+		double avgChgSpeed = problem.getLoads().getAverageChargingSpeed(t);
 		if(avgChgSpeed != 0)
 			amount -= problem.getVars().pda[h] / avgChgSpeed;
 		return amount * problem.getMarket().getExpectedImbalancePrice(t); 
@@ -205,81 +208,178 @@ public class CurveApproxModel implements ISolveModel {
 		DecisionVariables dec = problem.getVars();
 		Loads loads = problem.getLoads();
 		int nFixed = problem.getMarket().getFixedPTUs();
-		Curve[] curves = new Curve[problem.getNTimeSteps()];
-		Arrays.fill(curves, null);
-		for (int e = 0; e < problem.getNLoads(); e++) {
+		//The PTUs (after the fixed PTUs) of every load are covered by the combined curves of a shared curve tree
+		CurveTree tree = new CurveTree(problem.getNTimeSteps());
+		for (int e = 0; e < problem.getNLoads(); e++)
+			tree.require(Math.max(nFixed, loads.getStartT(e)), loads.getEndT(e));
+		tree.build();
+		IntStream.range(0, problem.getNLoads()).parallel().forEach(e -> {
 			int startT = loads.getStartT(e);
 			int endT = loads.getEndT(e);
-			for (int t = startT; t < endT; t++) {
-				if (curves[t] == null)
-					curves[t] = findCurve(t);
+			Curve curve = null;
+			for (int t = startT; t < Math.min(nFixed, endT); t++)
+				curve = combineCurves(curve, fixedCurve(e, t));
+			curve = combineCurves(curve, tree.get(Math.max(nFixed, startT), endT));
+			if (curve != null)
+				curve.makeDecisions(dec, e);
+		});
+		dec.imbalancePurchaseFromCharging();
+	}
+
+	/**
+	 * Segment tree of combined curves over the PTUs of the problem.
+	 * Every node combines the curves of a range of PTUs, so that the curve of any range of PTUs is the combination
+	 * of at most two nodes per level of the tree. The combined curves of a range of PTUs are cached,
+	 * so that loads with the same range share their curve.
+	 * Only the nodes that are required by the requested ranges are built
+	 */
+	private class CurveTree {
+		final int size, nTimeSteps;
+		final Curve[] nodes;
+		final boolean[] required;
+		final Map<Long, Curve> ranges;
+
+		/**
+		 * Create an empty curve tree
+		 * @param nTimeSteps the number of PTUs
+		 */
+		CurveTree(int nTimeSteps) {
+			this.nTimeSteps = nTimeSteps;
+			this.size = Integer.highestOneBit(Math.max(1, nTimeSteps - 1)) * 2;
+			this.nodes = new Curve[2 * size];
+			this.required = new boolean[2 * size];
+			this.ranges = new ConcurrentHashMap<>();
+		}
+
+		/**
+		 * Mark the nodes that are needed for the range of PTUs [startT, endT)
+		 */
+		void require(int startT, int endT) {
+			for (int l = startT + size, r = endT + size; l < r; l >>= 1, r >>= 1) {
+				if ((l & 1) == 1) required[l++] = true;
+				if ((r & 1) == 1) required[--r] = true;
+			}
+		}
+
+		/**
+		 * Build all required nodes. The curves of the PTUs are found in parallel,
+		 * and then the nodes of every level are combined in parallel, from the bottom up
+		 */
+		void build() {
+			for (int i = 1; i < size; i++) {
+				if (!required[i]) continue;
+				required[2 * i] = true;
+				required[2 * i + 1] = true;
 			}
-			Curve curve = startT < nFixed && true ? fixedCurve(e, startT) : curves[startT];
-			for (int t = startT + 1; t < endT; t++) {
-				curve = combineCurves(curve, t < nFixed && true ? fixedCurve(e, t) : curves[t]);
+			IntStream.range(0, nTimeSteps).parallel().filter(t -> required[size + t])
+					.forEach(t -> nodes[size + t] = findCurve(t));
+			for (int level = size / 2; level >= 1; level /= 2) {
+				IntStream.range(level, 2 * level).parallel().filter(i -> required[i])
+						.forEach(i -> nodes[i] = combineCurves(nodes[2 * i], nodes[2 * i + 1]));
 			}
-			curve.makeDecisions(dec, e);
 		}
-		dec.imbalancePurchaseFromCharging();
+
+		/**
+		 * Get the combined curve of the range of PTUs [startT, endT). The range should be required before the tree was built
+		 * @return the combined curve, or null if the range is empty
+		 */
+		Curve get(int startT, int endT) {
+			if (startT >= endT) return null;
+			return ranges.computeIfAbsent(((long) startT << 32) | endT, k -> {
+				Curve left = null, right = null;
+				for (int l = startT + size, r = endT + size; l < r; l >>= 1, r >>= 1) {
+					if ((l & 1) == 1) left = combineCurves(left, nodes[l++]);
+					if ((r & 1) == 1) right = combineCurves(nodes[--r], right);
+				}
+				return combineCurves(left, right);
+			});
+		}
 	}
 
 	/**
 	 * Curve that represents a (partial) solution.
 	 * Contains a dynamic programming solution.
-	 * Contains a (partial) solution for every amount of charge that is still needed (on the nT axis)
-	 * The solution describes the decisions per PTU that is considered (on the nPTU axis)
+	 * Contains the expected costs for every amount of charge that is still needed.
+	 * A curve for one PTU stores the decisions for every amount of charge.
+	 * A combined curve stores for every amount of charge how much of it is taken from the first curve,
+	 * the decisions per PTU are found by backtracking through the combined curves
 	 */
 	private class Curve {
-		double[][] imb;
-		Double[][] down;
-		Double[][] up;
-		double[] cost;
-		
+		final double[] cost;
+		final int nPTUs;
+		final boolean convex;
+		//The decisions of a curve for one PTU (down and up are NaN if no bid is placed)
+		final double[] imb, down, up;
+		//The curves that are combined in this curve, and the amount of charge taken from left for every amount of charge
+		final Curve left, right;
+		final int[] split;
+
 		/**
-		 * Create a curve instance
+		 * Create a curve instance for one PTU
 		 * @param imb the amount of imbalance-charge to buy (for increasing amounts of demand)
-		 * @param down the down reserve bids (price) to commit (for increasing amounts of demand)
-		 * @param up the up reserve bids (price) to commit (for increasing amounts of demand)
+		 * @param down the down reserve bids (price) to commit, or NaN for no bid (for increasing amounts of demand)
+		 * @param up the up reserve bids (price) to commit, or NaN for no bid (for increasing amounts of demand)
 		 * @param cost the costs to expect based on the other decisions (for increasing amounts of demand)
 		 */
-		public Curve(double[] imb, Double[] down, Double[] up, double[] cost) {
-			this(cost.length);
-			for(int i=0; i<getMaxChargingTime(); i++) {
-				this.imb[i][0] = imb[i];
-				this.down[i][0] = down[i];
-				this.up[i][0] = up[i];
-			}
+		public Curve(double[] imb, double[] down, double[] up, double[] cost) {
 			this.cost = cost;
+			this.nPTUs = 1;
+			this.convex = isConvex(cost);
+			this.imb = imb;
+			this.down = down;
+			this.up = up;
+			this.left = null;
+			this.right = null;
+			this.split = null;
 		}
 
 		/**
-		 * Create a curve instance for one PTU
-		 * @param nT the granularity of the decisions
+		 * Create a curve instance that combines two curves
+		 * @param left the first curve
+		 * @param right the second curve
+		 * @param cost the costs of the combined curve
+		 * @param split the amount of charge taken from the first curve, for every amount of charge
+		 * @param convex whether the cost curve is convex
 		 */
-		public Curve(int nT) {
-			this(1, nT);
+		private Curve(Curve left, Curve right, double[] cost, int[] split, boolean convex) {
+			this.cost = cost;
+			this.nPTUs = left.nPTUs + right.nPTUs;
+			this.convex = convex;
+			this.imb = null;
+			this.down = null;
+			this.up = null;
+			this.left = left;
+			this.right = right;
+			this.split = split;
 		}
 
-		/**
-		 * Create a curve instance
-		 * @param nPTUs the number of PTUs that this solution covers
-		 * @param nT the granularity of the decisions (within one PTU)
-		 */
-		private Curve(int nPTUs, int nT) {
-			imb = new double[nT][nPTUs];
-			down = new Double[nT][nPTUs];
-			up = new Double[nT][nPTUs];
-			cost = new double[nT];
-		}
-		
 		private int getNPTUs() {
-			return imb[0].length;
+			return nPTUs;
 		}
 
 		private int getMaxChargingTime() {
 			return cost.length;
 		}
 
+		/**
+		 * Find the PTU curves and their amounts of charge that make up amount of charge i of this curve
+		 * @param i the amount of charge
+		 * @param offset the PTU of the first PTU of this curve
+		 * @param ptuCurves the array to store the PTU curves in
+		 * @param ptuCharge the array to store the amount of charge of every PTU curve in
+		 */
+		private void backtrack(int i, int offset, Curve[] ptuCurves, int[] ptuCharge) {
+			Curve curve = this;
+			while (curve.left != null) {
+				int j = curve.split[i];
+				curve.right.backtrack(i - j, offset + curve.left.getNPTUs(), ptuCurves, ptuCharge);
+				curve = curve.left;
+				i = j;
+			}
+			ptuCurves[offset] = curve;
+			ptuCharge[offset] = i;
+		}
+
 		/**
 		 * Get the decisions from this curve and store them
 		 * @param dec the DecisionVariables object to store the decisions in
@@ -297,21 +397,26 @@ public class CurveApproxModel implements ISolveModel {
 			final int _n = n;
 			if(cost[n] == Double.POSITIVE_INFINITY)
 				n = IntStream.range(0, getMaxChargingTime()-1).filter(i -> cost[i] != Double.POSITIVE_INFINITY).boxed().min(Comparator.comparingInt(i -> Math.abs(i-_n))).orElse(n);
+			Curve[] ptuCurves = new Curve[getNPTUs()];
+			int[] ptuCharge = new int[getNPTUs()];
+			backtrack(n, 0, ptuCurves, ptuCharge);
 			for(int t=0; t<endT-startT; t++) {
-				dec.p[e][startT + t] = imb[n][t] * maxChgSpeed;
+				Curve c = ptuCurves[t];
+				int k = ptuCharge[t];
+				dec.p[e][startT + t] = c.imb[k] * maxChgSpeed;
 				if (startT + t < problem.getMarket().getFixedPTUs() && cost[n] == Double.POSITIVE_INFINITY) {
 					dec.p[e][startT + t] = Math.min(maxChgSpeed-dec.rcd[e][startT + t], Math.max(dec.rcu[e][startT + t], dec.p[e][startT + t]));
 					continue;
 				}
-				assert !(down[n][t] != null && up[n][t] != null);
-				if(down[n][t] != null) {
-					dec.bd[e][startT + t] = down[n][t];
+				assert Double.isNaN(c.down[k]) || Double.isNaN(c.up[k]);
+				if(!Double.isNaN(c.down[k])) {
+					dec.bd[e][startT + t] = c.down[k];
 					dec.rcd[e][startT + t] = maxChgSpeed;
 				} else {
 					dec.rcd[e][startT + t] = 0;
 				}
-				if (up[n][t] != null) {
-					dec.bu[e][startT + t] = up[n][t];
+				if (!Double.isNaN(c.up[k])) {
+					dec.bu[e][startT + t] = c.up[k];
 					dec.rcu[e][startT + t] = maxChgSpeed;
 				} else {
 					dec.rcu[e][startT + t] = 0;
@@ -320,43 +425,199 @@ public class CurveApproxModel implements ISolveModel {
 		}
 
 		/**
-		 * Combine two curves. For every amount of demand, choose the cheapest decision combination from the two curves
+		 * Combine two curves. For every amount of demand, choose the cheapest decision combination from the two curves.
+		 * Two convex curves are combined in linear time by merging their slopes.
+		 * If only one of the curves is convex, the cheapest combinations are found in linear time with the SMAWK algorithm.
+		 * Otherwise all combinations are compared
 		 * @param c the curve to combine this with
 		 * @return the combined curve
 		 */
 		public Curve combine(Curve c) {
-			int nPTUs = getNPTUs() + c.getNPTUs();
 			int nT = getMaxChargingTime() + c.getMaxChargingTime() - 1;
-			Curve r = new Curve(nPTUs, nT);
-			for (int i = 0; i < nT; i++) {
-				int best1 = -1;
-				int best2 = -1;
-				for (int j = 0; j <= i; j++) {
-					int k = i - j;
-					if (j >= getMaxChargingTime() || k >= c.getMaxChargingTime()) continue;
-					if (best1 == -1 || best2 == -1 || cost[j] + c.cost[k] < cost[best1] + c.cost[best2]) {
-						best1 = j;
-						best2 = k;
-					}
-				}
-				r.cost[i] = cost[best1] + c.cost[best2];
-				assert !Double.isNaN(r.cost[i]);
-				for(int j=0; j<getNPTUs(); j++) {
-					r.down[i][j] = down[best1][j];
-					r.up[i][j] = up[best1][j];
-					r.imb[i][j] = imb[best1][j];
-				}
-				for (int j = 0; j < c.getNPTUs(); j++) {
-					r.down[i][getNPTUs() + j] = c.down[best2][j];
-					r.up[i][getNPTUs() + j] = c.up[best2][j];
-					r.imb[i][getNPTUs() + j] = c.imb[best2][j];
-				}
+			double[] r = new double[nT];
+			int[] split = new int[nT];
+			if (convex && c.convex) {
+				convexMinPlus(cost, c.cost, r, split);
+				return new Curve(this, c, r, split, true);
 			}
-			return r;
+			if (convex || c.convex)
+				monotoneMinPlus(cost, c.cost, c.convex, r, split);
+			else
+				minPlus(cost, c.cost, r, split);
+			return new Curve(this, c, r, split, isConvex(r));
 		}
 
 	}
 
+	/**
+	 * Min-plus convolution of a and b by comparing all combinations.
+	 * For every i, r[i] = min a[j] + b[i-j], and split[i] is the smallest j with that minimum
+	 */
+	private static void minPlus(double[] a, double[] b, double[] r, int[] split) {
+		for (int i = 0; i < r.length; i++) {
+			int best = Math.max(0, i - b.length + 1);
+			for (int j = best + 1; j <= i && j < a.length; j++) {
+				if (a[j] + b[i - j] < a[best] + b[i - best])
+					best = j;
+			}
+			r[i] = a[best] + b[i - best];
+			split[i] = best;
+			assert !Double.isNaN(r[i]);
+		}
+	}
+
+	/**
+	 * Min-plus convolution of two convex curves (Minkowski sum): walk from the cheapest point of both curves
+	 * and take the smallest slope of a and b in every step
+	 */
+	private static void convexMinPlus(double[] a, double[] b, double[] r, int[] split) {
+		int loA = firstFinite(a), hiA = lastFinite(a);
+		int loB = firstFinite(b), hiB = lastFinite(b);
+		Arrays.fill(r, Double.POSITIVE_INFINITY);
+		for (int i = 0; i < r.length; i++)
+			split[i] = Math.max(0, i - b.length + 1);
+		int j = loA, k = loB;
+		r[j + k] = a[j] + b[k];
+		split[j + k] = j;
+		while (j < hiA || k < hiB) {
+			if (k == hiB || (j < hiA && a[j + 1] - a[j] < b[k + 1] - b[k])) j++;
+			else k++;
+			r[j + k] = a[j] + b[k];
+			split[j + k] = j;
+		}
+	}
+
+	/**
+	 * Min-plus convolution of a and b where one of the two curves is convex.
+	 * The matrix of combinations (amount of charge x point on the other curve) is then totally monotone,
+	 * so its row minima are found with the SMAWK algorithm.
+	 * Like minPlus, split[i] is the smallest j with the minimum
+	 * @param bConvex whether b (or otherwise a) is the convex curve
+	 */
+	private static void monotoneMinPlus(double[] a, double[] b, boolean bConvex, double[] r, int[] split) {
+		final double[] other = bConvex ? a : b;
+		final double[] kernel = bConvex ? b : a;
+		final int lo = firstFinite(kernel), hi = lastFinite(kernel);
+		int[] argmin = new int[r.length];
+		if (firstFinite(other) >= 0) {
+			//Outside its finite range, extend the kernel linearly with a slope that exceeds all cost differences, so that it stays convex
+			final double big = 2 * (getSpan(other) + getSpan(kernel)) + 1;
+			Matrix m = (i, j) -> {
+				int k = i - j;
+				if (k < lo) return other[j] + kernel[lo] + (lo - k) * big;
+				if (k > hi) return other[j] + kernel[hi] + (k - hi) * big;
+				return other[j] + kernel[k];
+			};
+			int[] rows = IntStream.range(0, r.length).toArray(), cols = IntStream.range(0, other.length).toArray();
+			if (bConvex) {
+				smawk(rows, cols, m, argmin);
+			} else {
+				//The columns are points on b, so the smallest split is the rightmost minimum:
+				//find the leftmost minima of the matrix with its rows and columns reversed (which is still totally monotone)
+				final int lastRow = r.length - 1, lastCol = other.length - 1;
+				int[] reversed = new int[r.length];
+				smawk(rows, cols, (i, j) -> m.get(lastRow - i, lastCol - j), reversed);
+				for (int i = 0; i < r.length; i++)
+					argmin[i] = lastCol - reversed[lastRow - i];
+			}
+		}
+		for (int i = 0; i < r.length; i++) {
+			int j = argmin[i], k = i - j;
+			if (other[j] == Double.POSITIVE_INFINITY || k < lo || k > hi) {
+				r[i] = Double.POSITIVE_INFINITY;
+				split[i] = Math.max(0, i - b.length + 1);
+			} else {
+				r[i] = other[j] + kernel[k];
+				split[i] = bConvex ? j : k;
+			}
+		}
+	}
+
+	private interface Matrix {
+		double get(int row, int col);
+	}
+
+	/**
+	 * The SMAWK algorithm: find the (leftmost) minimum in every row of a totally monotone matrix
+	 * @param rows the rows to find the minimum of, in increasing order
+	 * @param cols the columns to consider, in increasing order
+	 * @param m the matrix
+	 * @param result the array to store the column of the minimum of every row in
+	 */
+	private static void smawk(int[] rows, int[] cols, Matrix m, int[] result) {
+		if (rows.length == 0) return;
+		//Reduce: remove the columns that cannot contain a row minimum
+		int[] stack = new int[Math.min(rows.length, cols.length)];
+		int size = 0;
+		for (int c : cols) {
+			while (size > 0 && m.get(rows[size - 1], stack[size - 1]) > m.get(rows[size - 1], c))
+				size--;
+			if (size < rows.length)
+				stack[size++] = c;
+		}
+		int[] reduced = Arrays.copyOf(stack, size);
+		//Find the minima of the odd rows recursively
+		int[] odd = new int[rows.length / 2];
+		for (int r = 1; r < rows.length; r += 2)
+			odd[r / 2] = rows[r];
+		smawk(odd, reduced, m, result);
+		//Find the minima of the even rows between the minima of their neighbouring odd rows
+		int c = 0;
+		for (int r = 0; r < rows.length; r += 2) {
+			int last = size - 1;
+			if (r + 1 < rows.length) {
+				last = c;
+				while (reduced[last] != result[rows[r + 1]])
+					last++;
+			}
+			int best = c;
+			for (int x = c + 1; x <= last; x++) {
+				if (m.get(rows[r], reduced[x]) < m.get(rows[r], reduced[best]))
+					best = x;
+			}
+			result[rows[r]] = reduced[best];
+			c = last;
+		}
+	}
+
+	/**
+	 * @return whether the finite part of the cost curve is one range with non-decreasing slopes
+	 */
+	private static boolean isConvex(double[] cost) {
+		int lo = firstFinite(cost), hi = lastFinite(cost);
+		if (lo < 0) return false;
+		for (int i = lo + 1; i <= hi; i++) {
+			if (cost[i] == Double.POSITIVE_INFINITY) return false;
+			if (i > lo + 1 && cost[i] - cost[i - 1] < cost[i - 1] - cost[i - 2]) return false;
+		}
+		return true;
+	}
+
+	private static int firstFinite(double[] cost) {
+		for (int i = 0; i < cost.length; i++)
+			if (cost[i] != Double.POSITIVE_INFINITY) return i;
+		return -1;
+	}
+
+	private static int lastFinite(double[] cost) {
+		for (int i = cost.length - 1; i >= 0; i--)
+			if (cost[i] != Double.POSITIVE_INFINITY) return i;
+		return -1;
+	}
+
+	/**
+	 * @return the difference between the highest and lowest finite cost
+	 */
+	private static double getSpan(double[] cost) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (double c : cost) {
+			if (c == Double.POSITIVE_INFINITY) continue;
+			min = Math.min(min, c);
+			max = Math.max(max, c);
+		}
+		return max - min;
+	}
+
 	@Override
 	public boolean isSolvable() {
 		return true;
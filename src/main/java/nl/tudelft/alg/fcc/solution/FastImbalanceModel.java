@@ -1,6 +1,5 @@
 package nl.tudelft.alg.fcc.solution;
 
-import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import nl.tudelft.alg.MipSolverCore.ISolver;
@@ -104,8 +103,7 @@ public class FastImbalanceModel implements ISolveModel {
 	private double getExpectedPrice(int t)  {
 		double amount = 1.0;
 		int h = problem.getMarket().PTUtoH(t);
-		double avgChgSpeed = Arrays.stream(problem.getLoads().getLoads()).filter(l -> l.isAvailable(t+problem.getStartT()))
-			.mapToDouble(l -> l.getChargingSpeed(t+problem.getStartT())).average().orElse(0);
+		double avgChgSpeed = problem.getLoads().getAverageChargingSpeed(t);
 		if(avgChgSpeed != 0)
 			amount -= problem.getVars().pda[h] / avgChgSpeed;
 		return amount * problem.getMarket().getExpectedImbalancePrice(t); 
@@ -42,6 +42,7 @@ public class EFEL_P2 extends CompactStochasticModel {
 					left2 =  new LinExp(vu[e][t][i]); 
 					for (int j = 0; j < c.getEVs(); j++) {
 						int evid = c.getEVid(j);
+						if(this.vd[evid][t] == null) continue;
 						right1 = new LinExp(this.vd[evid][t][i]);
 						right2 = new LinExp(this.vu[evid][t][i]);
 						addConstraint(left1, right1, CMP.EQ, "fxVD_"+evid+"_"+t+"_"+i);
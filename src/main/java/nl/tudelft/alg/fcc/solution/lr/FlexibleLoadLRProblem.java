@@ -5,7 +5,6 @@ import java.io.IOException;
 
 import nl.tudelft.alg.MipSolverCore.LRModel;
 import nl.tudelft.alg.MipSolverCore.LRProblem;
-import nl.tudelft.alg.fcc.model.Market;
 import nl.tudelft.alg.fcc.problem.FlexibleLoadProblem;
 import nl.tudelft.alg.fcc.utils.CSVWriter;
 
@@ -19,16 +18,17 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 		sign, lastix, startix;
 	int [][] orderUP,orderdown;
 	double minBID;
-	double [][][] vu,vd, rcd, rdd, rcu, rdu,
+	double[] subproblemObj; // the objective of every subproblem in the current iteration
+	// flat arrays for every load, time step and scenario, see index(e,t,i)
+	double [] vu,vd, rcd, rdd, rcu, rdu,
 				newGradientUP, newGradientDO, 
 				oldGradientUP, oldGradientDO,
-				subGradientUP, subGradientDO, 
 				multipliersUP, multipliersDO;
-	double [][] fu,fd,pc,pd,
-			newGradientMBUP, newGradientMBDO, 
+	// flat arrays for every time step and scenario, see index(t,i)
+	double [] newGradientMBUP, newGradientMBDO, 
 			oldGradientMBUP, oldGradientMBDO,
-			subGradientMBUP, subGradientMBDO, 
 			multipliersMBUP, multipliersMBDO;
+	double [][] fu,fd,pc,pd;
 	
 	// Initialize cluster with ev - data from problem
 	public FlexibleLoadLRProblem(LRModel<FlexibleLoadProblem> instance) {
@@ -36,28 +36,26 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 		this.nTimeSteps = problem.getNTimeSteps();
 		this.nLoads = problem.getLoads().getNLoads();
 		this.nScenarios = problem.getMarket().getNScenarios();
-		this.vu = new double [nLoads][nTimeSteps][nScenarios];
-		this.vd = new double [nLoads][nTimeSteps][nScenarios];
-		this.rcu = new double [nLoads][nTimeSteps][nScenarios];
-		this.rcd = new double [nLoads][nTimeSteps][nScenarios];
-		this.rdu = new double [nLoads][nTimeSteps][nScenarios];
-		this.rdd = new double [nLoads][nTimeSteps][nScenarios];
-		this.newGradientUP = new double [nLoads][nTimeSteps][nScenarios];
-		this.newGradientDO = new double [nLoads][nTimeSteps][nScenarios];
-		this.oldGradientUP = new double [nLoads][nTimeSteps][nScenarios];
-		this.oldGradientDO = new double [nLoads][nTimeSteps][nScenarios];
-		this.subGradientUP = new double [nLoads][nTimeSteps][nScenarios];
-		this.subGradientDO = new double [nLoads][nTimeSteps][nScenarios];
-		this.multipliersUP = new double [nLoads][nTimeSteps][nScenarios];
-		this.multipliersDO = new double [nLoads][nTimeSteps][nScenarios];
-		this.newGradientMBUP = new double [nTimeSteps][nScenarios];
-		this.newGradientMBDO = new double [nTimeSteps][nScenarios];
-		this.oldGradientMBUP = new double [nTimeSteps][nScenarios];
-		this.oldGradientMBDO = new double [nTimeSteps][nScenarios];
-		this.subGradientMBUP = new double [nTimeSteps][nScenarios];
-		this.subGradientMBDO = new double [nTimeSteps][nScenarios];
-		this.multipliersMBUP = new double [nTimeSteps][nScenarios];
-		this.multipliersMBDO = new double [nTimeSteps][nScenarios];
+		final int nLoadValues = nLoads * nTimeSteps * nScenarios;
+		final int nValues = nTimeSteps * nScenarios;
+		this.vu = new double [nLoadValues];
+		this.vd = new double [nLoadValues];
+		this.rcu = new double [nLoadValues];
+		this.rcd = new double [nLoadValues];
+		this.rdu = new double [nLoadValues];
+		this.rdd = new double [nLoadValues];
+		this.newGradientUP = new double [nLoadValues];
+		this.newGradientDO = new double [nLoadValues];
+		this.oldGradientUP = new double [nLoadValues];
+		this.oldGradientDO = new double [nLoadValues];
+		this.multipliersUP = new double [nLoadValues];
+		this.multipliersDO = new double [nLoadValues];
+		this.newGradientMBUP = new double [nValues];
+		this.newGradientMBDO = new double [nValues];
+		this.oldGradientMBUP = new double [nValues];
+		this.oldGradientMBDO = new double [nValues];
+		this.multipliersMBUP = new double [nValues];
+		this.multipliersMBDO = new double [nValues];
 		//
 		this.fu = new double [nTimeSteps][nScenarios];
 		this.fd = new double [nTimeSteps][nScenarios];
@@ -69,6 +67,7 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 		this.lastix = problem.getMarket().hasCapacityPayments() ? nScenarios-1 : 0;
 		this.startix = problem.getMarket().hasCapacityPayments() ? 0 : 1;
 		this.minBID = problem.getConfig().getMinBid();
+		this.subproblemObj = new double[nLoads];
 		this.orderUP = new int[nTimeSteps][nScenarios];
 		this.orderdown = new int[nTimeSteps][nScenarios]; 
 		
@@ -81,59 +80,66 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 			}
 		}
 	}
-		
-	public void setVd(int e, boolean [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0; t<nTimeSteps;t++) {
-				this.vd[e][t][i] = sol[t][i] ? 1 : 0;
+	
+	/**
+	 * @return the position of load e, time step t and scenario i in the flat load arrays
+	 */
+	int index(int e, int t, int i) {
+		return (e * nTimeSteps + t) * nScenarios + i;
+	}
+	
+	/**
+	 * @return the position of time step t and scenario i in the flat cluster arrays
+	 */
+	int index(int t, int i) {
+		return t * nScenarios + i;
+	}
+	
+	/**
+	 * Copy the [time step][scenario] solution of load e to the flat array
+	 */
+	private void copy(int e, boolean [][] sol, double[] target) {
+		int k = index(e,0,0);
+		for(int t=0; t<nTimeSteps; t++) {
+			for(int i=0; i<nScenarios; i++) {
+				target[k++] = sol[t][i] ? 1 : 0;
 			}
 		}
 	}
-	public void setVu(int e, boolean [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0; t<nTimeSteps;t++) {
-				this.vu[e][t][i] = sol[t][i] ? 1 : 0;
-			}
+	
+	/**
+	 * Copy the [time step][scenario] solution of load e to the flat array
+	 */
+	private void copy(int e, double [][] sol, double[] target) {
+		for(int t=0; t<nTimeSteps; t++) {
+			System.arraycopy(sol[t], 0, target, index(e,t,0), nScenarios);
 		}
 	}
+		
+	public void setVd(int e, boolean [][] sol) {
+		copy(e, sol, vd);
+	}
+	public void setVu(int e, boolean [][] sol) {
+		copy(e, sol, vu);
+	}
 	
 	public void setRcd(int e, double [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0; t<nTimeSteps;t++) {
-				this.rcd[e][t][i] = sol[t][i];
-			}
-		}
+		copy(e, sol, rcd);
 	}
 	public void setRdd(int e, double [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0; t<nTimeSteps;t++) {
-				this.rdd[e][t][i] = sol[t][i];
-			}
-		}
+		copy(e, sol, rdd);
 	}
 	public void setRcu(int e, double [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-				for(int t=0; t<nTimeSteps;t++) {
-					this.rcu[e][t][i] = sol[t][i];
-			}
-		}
+		copy(e, sol, rcu);
 	}
 	public void setRdu(int e, double [][] sol) {
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0; t<nTimeSteps;t++) {
-				this.rdu[e][t][i] = sol[t][i];
-			}
-		}
+		copy(e, sol, rdu);
 	}
 	public void setPc(int e, double [] sol) {
-		for(int t=0; t<nTimeSteps;t++) {
-			this.pc[e][t] = sol[t];
-		}
+		System.arraycopy(sol, 0, this.pc[e], 0, nTimeSteps);
 	}
 	public void setPd(int e, double [] sol) {
-		for(int t=0; t<nTimeSteps;t++) {
-			this.pd[e][t] = sol[t];
-		}
+		System.arraycopy(sol, 0, this.pd[e], 0, nTimeSteps);
 	}
 	
 	public double[][] getFu() {
@@ -144,47 +150,46 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 	}
 	
 	public double getmultipliersDO(int e, int t, int i) {
-		return this.multipliersDO[e][t][i];
+		return this.multipliersDO[index(e,t,i)];
 	}
 	
 	public double getmultipliersUP(int e, int t, int i) {
-		return this.multipliersUP[e][t][i];
+		return this.multipliersUP[index(e,t,i)];
 	}
 	
 	public double getmultipliersMBDO(int t, int i) {
-		return this.multipliersMBDO[t][i];
+		return this.multipliersMBDO[index(t,i)];
 	}
 	
 	public double getmultipliersMBUP(int t, int i) {
-		return this.multipliersMBUP[t][i];
+		return this.multipliersMBUP[index(t,i)];
 	}
 	
 	
 	@Override
 	public void addTolowerObj() {
-		double[][] summultiUP, summultiDO;
-		int[][] orsummultiUP, orsummultiDO, revorderUP, revorderdown;
-		summultiUP=new double [nTimeSteps][nScenarios];
-		summultiDO=new double [nTimeSteps][nScenarios];
+		final int nValues = nTimeSteps * nScenarios;
+		double[] summultiUP, summultiDO;
+		int[][] orsummultiUP, orsummultiDO;
+		summultiUP=new double [nValues];
+		summultiDO=new double [nValues];
 		orsummultiUP=new int [nTimeSteps][nScenarios];
 		orsummultiDO=new int [nTimeSteps][nScenarios];
-		revorderUP=new int [nTimeSteps][nScenarios];
-		revorderdown=new int [nTimeSteps][nScenarios];
-		for(int t=0;t<nTimeSteps;t++) {
-			for(int i=0;i<nScenarios;i++) {
-				revorderUP[t][orderUP[t][i]] = i;
-				revorderdown[t][orderdown[t][i]] = i;
-				for(int e=0;e<nLoads;e++) {
-					summultiUP[t][i] += this.multipliersUP[e][t][i];
-					summultiDO[t][i] += this.multipliersDO[e][t][i];
-				}
-				summultiUP[t][i] -= this.multipliersMBUP[t][i]*minBID;
-				summultiDO[t][i] -= this.multipliersMBDO[t][i]*minBID;
+		// the load multipliers are stored per load, so sum them in one pass over the flat arrays
+		for(int e=0, k=0;e<nLoads;e++) {
+			for(int j=0;j<nValues;j++,k++) {
+				summultiUP[j] += this.multipliersUP[k];
+				summultiDO[j] += this.multipliersDO[k];
 			}
 		}
+		for(int j=0;j<nValues;j++) {
+			summultiUP[j] -= this.multipliersMBUP[j]*minBID;
+			summultiDO[j] -= this.multipliersMBDO[j]*minBID;
+		}
 		
 		//Order multipliers from largest to smallest (Minimization of - multiplier*fd-u)
 		for(int t=0; t<nTimeSteps; t++) {
+			final int o = index(t,0);
 			orsummultiUP[t][0] = 0;
 			orsummultiDO[t][0] = 0;
 			this.fu[t][0]=0;
@@ -195,11 +200,11 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 				orsummultiUP[t][i] = i;
 				orsummultiDO[t][i] = i;
 				for(int j=i-1;j>=0;j--) {
-					if ( summultiUP[t][i] > summultiUP[t][orsummultiUP[t][j]] ) {
+					if ( summultiUP[o+i] > summultiUP[o+orsummultiUP[t][j]] ) {
 						orsummultiUP[t][j+1] = orsummultiUP[t][j];
 						orsummultiUP[t][j] = i;
 					}
-					if ( summultiDO[t][i] > summultiDO[t][orsummultiDO[t][j]] ) {
+					if ( summultiDO[o+i] > summultiDO[o+orsummultiDO[t][j]] ) {
 						orsummultiDO[t][j+1] = orsummultiDO[t][j];
 						orsummultiDO[t][j] = i;
 					}
@@ -208,22 +213,25 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 		}
 		
 		for(int t=0; t<nTimeSteps; t++) {
+			final int o = index(t,0);
 			for(int i=0; i<nScenarios; i++) {
-				if(i<UClusters && summultiUP[t][orsummultiUP[t][i]]>0) this.fu[t][orderUP[t][orsummultiUP[t][i]]] = 1;//revorderUP or orderUP???
-				if(i<DClusters && summultiDO[t][orsummultiDO[t][i]]>0) this.fd[t][orderdown[t][orsummultiDO[t][i]]] = 1;
+				if(i<UClusters && summultiUP[o+orsummultiUP[t][i]]>0) this.fu[t][orderUP[t][orsummultiUP[t][i]]] = 1;//revorderUP or orderUP???
+				if(i<DClusters && summultiDO[o+orsummultiDO[t][i]]>0) this.fd[t][orderdown[t][orsummultiDO[t][i]]] = 1;
 			}
 		}
 		
 		for(int t=0; t<nTimeSteps; t++) {
+			final int o = index(t,0);
 			for(int i=0; i<nScenarios; i++) {
-				this.lowerObj-= this.fu[t][orderUP[t][i]]*summultiUP[t][i];
-				this.lowerObj-= this.fd[t][orderdown[t][i]]*summultiDO[t][i];
+				this.lowerObj-= this.fu[t][orderUP[t][i]]*summultiUP[o+i];
+				this.lowerObj-= this.fd[t][orderdown[t][i]]*summultiDO[o+i];
 			}
 		}
 	}
 	
 	@Override
 	public void updateMultipliers() {
+		final int last = nScenarios-1;
 		double stepsize, stepsizeMinBid;
 		if(parC > parF && (this.iteration+1) > parC) {
 			this.counter2 +=1;
@@ -241,67 +249,64 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 			}
 		}
 		
+		//Direction of the cluster multipliers, the reserves of the loads are subtracted below
+		for(int t=0;t<nTimeSteps;t++) {
+			final int o = index(t,0);
+			for(int i=0;i<last;i++) {
+				newGradientMBUP[o+i] = fu[t][orderUP[t][i]]*minBID;
+				newGradientMBDO[o+i] = fd[t][orderdown[t][i+startix]]*minBID;
+			}
+			this.newGradientMBUP[o+last]=fu[t][orderUP[t][last]]*minBID;
+			this.newGradientMBDO[o+last]=fd[t][orderdown[t][lastix]]*minBID;
+		}
+		
 		//Direction of each for each multiplier - how is the order compatible?
+		//The subgradient and its squared norm are determined in the same pass
+		stepsize = 0;
 		for(int e=0;e<nLoads;e++) {
 			for(int t=0;t<nTimeSteps;t++) {
-				for(int i=0;i<nScenarios-1;i++) {
-					this.newGradientUP[e][t][i] = -fu[t][orderUP[t][i]]+(this.vu[e][t][orderUP[t][i]]-this.vu[e][t][orderUP[t][i+1]]);
-					this.newGradientDO[e][t][i] = -fd[t][orderdown[t][i+startix]]+(sign*this.vd[e][t][orderdown[t][i]]-sign*this.vd[e][t][orderdown[t][i+1]]);
-					if(e==0) {
-						newGradientMBUP[t][i] = fu[t][orderUP[t][i]]*minBID;
-						newGradientMBDO[t][i] = fd[t][orderdown[t][i+startix]]*minBID;					
-					}
-					if (minBID > 0) this.newGradientMBUP[t][i] =  this.newGradientMBUP[t][i]-(this.rcu[e][t][orderUP[t][i]] + this.rdu[e][t][orderUP[t][i]]) + (this.rcu[e][t][orderUP[t][i+1]] + this.rdu[e][t][orderUP[t][i+1]]);
-					if (minBID > 0) this.newGradientMBDO[t][i] =  this.newGradientMBDO[t][i] - sign*(this.rcd[e][t][orderdown[t][i]] + this.rdd[e][t][orderdown[t][i]]) + sign*(this.rcd[e][t][orderdown[t][i+1]] + this.rdd[e][t][orderdown[t][i+1]]);					
+				final int k = index(e,t,0), o = index(t,0);
+				final int[] oUP = orderUP[t], oDO = orderdown[t];
+				final double[] fut = fu[t], fdt = fd[t];
+				for(int i=0;i<last;i++) {
+					this.newGradientUP[k+i] = -fut[oUP[i]]+(this.vu[k+oUP[i]]-this.vu[k+oUP[i+1]]);
+					this.newGradientDO[k+i] = -fdt[oDO[i+startix]]+(sign*this.vd[k+oDO[i]]-sign*this.vd[k+oDO[i+1]]);
+					if (minBID > 0) this.newGradientMBUP[o+i] =  this.newGradientMBUP[o+i]-(this.rcu[k+oUP[i]] + this.rdu[k+oUP[i]]) + (this.rcu[k+oUP[i+1]] + this.rdu[k+oUP[i+1]]);
+					if (minBID > 0) this.newGradientMBDO[o+i] =  this.newGradientMBDO[o+i] - sign*(this.rcd[k+oDO[i]] + this.rdd[k+oDO[i]]) + sign*(this.rcd[k+oDO[i+1]] + this.rdd[k+oDO[i+1]]);
 				}
-				this.newGradientUP[e][t][nScenarios-1] = -fu[t][orderUP[t][nScenarios-1]]+this.vu[e][t][orderUP[t][nScenarios-1]];
-				this.newGradientDO[e][t][nScenarios-1] = -fd[t][orderdown[t][lastix]]+this.vd[e][t][orderdown[t][lastix]];
-				if (e==0) {
-					this.newGradientMBUP[t][nScenarios-1]=fu[t][orderUP[t][nScenarios-1]]*minBID;
-					this.newGradientMBDO[t][nScenarios-1]=fd[t][orderdown[t][lastix]]*minBID;
+				this.newGradientUP[k+last] = -fut[oUP[last]]+this.vu[k+oUP[last]];
+				this.newGradientDO[k+last] = -fdt[oDO[lastix]]+this.vd[k+oDO[lastix]];
+				if (minBID > 0) this.newGradientMBUP[o+last] = this.newGradientMBUP[o+last] - (this.rcu[k+oUP[last]] + this.rdu[k+oUP[last]]);
+				if (minBID > 0) this.newGradientMBDO[o+last] = this.newGradientMBDO[o+last]- (this.rcd[k+oDO[lastix]] + this.rdd[k+oDO[lastix]]);
+				for(int i=k;i<k+nScenarios;i++) {
+					double subGradientUP = this.newGradientUP[i]+this.parFi*this.oldGradientUP[i];
+					double subGradientDO = this.newGradientDO[i]+this.parFi*this.oldGradientDO[i];
+					stepsize += subGradientUP*subGradientUP;
+					stepsize += subGradientDO*subGradientDO;
 				}
-				if (minBID > 0) this.newGradientMBUP[t][nScenarios-1] = this.newGradientMBUP[t][nScenarios-1] - (this.rcu[e][t][orderUP[t][nScenarios-1]] + this.rdu[e][t][orderUP[t][nScenarios-1]]);
-				if (minBID > 0) this.newGradientMBDO[t][nScenarios-1] = this.newGradientMBDO[t][nScenarios-1]- (this.rcd[e][t][orderdown[t][lastix]] + this.rdd[e][t][orderdown[t][lastix]]);		
 			}		
 		}
-		
-		//Update subgradient
-		stepsize = 0;
 		stepsizeMinBid = 0;
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0;t<nTimeSteps;t++) {
-				for(int e=0;e<nLoads;e++) {
-					this.subGradientUP[e][t][i] = this.newGradientUP[e][t][i]+this.parFi*this.oldGradientUP[e][t][i];
-					this.subGradientDO[e][t][i] = this.newGradientDO[e][t][i]+this.parFi*this.oldGradientDO[e][t][i];
-					stepsize += Math.pow(this.subGradientUP[e][t][i],2);
-					stepsize += Math.pow(this.subGradientDO[e][t][i],2);
-				}
-				this.subGradientMBUP[t][i] = this.newGradientMBUP[t][i]+this.parFi*this.oldGradientMBUP[t][i];
-				this.subGradientMBDO[t][i] = this.newGradientMBDO[t][i]+this.parFi*this.oldGradientMBDO[t][i];
-				stepsizeMinBid += Math.pow(this.subGradientMBUP[t][i],2);
-				stepsizeMinBid += Math.pow(this.subGradientMBDO[t][i],2);
-			}		
+		for(int j=0;j<newGradientMBUP.length;j++) {
+			double subGradientMBUP = this.newGradientMBUP[j]+this.parFi*this.oldGradientMBUP[j];
+			double subGradientMBDO = this.newGradientMBDO[j]+this.parFi*this.oldGradientMBDO[j];
+			stepsizeMinBid += subGradientMBUP*subGradientMBUP;
+			stepsizeMinBid += subGradientMBDO*subGradientMBDO;
 		}
+		
 		//Estimate stepsize
 		stepsize = this.parB*(this.upperObj-this.lowerObj)/stepsize;
 		if(stepsize>this.maxStep)stepsize = this.maxStep;
 		stepsizeMinBid = this.parB*(this.upperObj-this.lowerObj)/stepsizeMinBid;
 		if(stepsizeMinBid>this.maxStep)stepsizeMinBid = this.maxStep;
-		//Update multipliers
-		for(int i=0;i<nScenarios;i++) {
-			for(int t=0;t<nTimeSteps;t++) {
-				for(int e=0;e<nLoads;e++) {
-					//if(iteration==1) {
-						//this.multipliersUP[e][t][i] = this.multipliersUP[e][t][i]+stepsize*this.subGradientUP[e][t][i];
-						//this.multipliersDO[e][t][i] = this.multipliersDO[e][t][i]+stepsize*this.subGradientDO[e][t][i];
-					//}else {
-						this.multipliersUP[e][t][i] = Math.max(0, this.multipliersUP[e][t][i]+stepsize*this.subGradientUP[e][t][i]);
-						this.multipliersDO[e][t][i] = Math.max(0, this.multipliersDO[e][t][i]+stepsize*this.subGradientDO[e][t][i]);
-					//}
-				}
-				this.multipliersMBUP[t][i] = Math.max(0, this.multipliersMBUP[t][i]+stepsizeMinBid*this.subGradientMBUP[t][i]);
-				this.multipliersMBDO[t][i] = Math.max(0, this.multipliersMBDO[t][i]+stepsizeMinBid*this.subGradientMBDO[t][i]);
-			}
+		//Update multipliers, the subgradient is recomputed instead of stored
+		for(int k=0;k<multipliersUP.length;k++) {
+			this.multipliersUP[k] = Math.max(0, this.multipliersUP[k]+stepsize*(this.newGradientUP[k]+this.parFi*this.oldGradientUP[k]));
+			this.multipliersDO[k] = Math.max(0, this.multipliersDO[k]+stepsize*(this.newGradientDO[k]+this.parFi*this.oldGradientDO[k]));
+		}
+		for(int j=0;j<multipliersMBUP.length;j++) {
+			this.multipliersMBUP[j] = Math.max(0, this.multipliersMBUP[j]+stepsizeMinBid*(this.newGradientMBUP[j]+this.parFi*this.oldGradientMBUP[j]));
+			this.multipliersMBDO[j] = Math.max(0, this.multipliersMBDO[j]+stepsizeMinBid*(this.newGradientMBDO[j]+this.parFi*this.oldGradientMBDO[j]));
 		}
 		
 		this.oldGradientUP = this.newGradientUP;
@@ -316,27 +321,30 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 	}
 	
 	public void defineCLgreedy() {
-		double [][] totalRd, totalRu;
+		final int nValues = nTimeSteps * nScenarios;
+		double [] totalRd, totalRu;
 		int[] idmaxRd, idmaxRu;
 		double maxRd, maxRu;
 		maxRd = 0;
 		maxRu = 0;
-		totalRd = new double [nTimeSteps][nScenarios];
-		totalRu = new double [nTimeSteps][nScenarios];
+		totalRd = new double [nValues];
+		totalRu = new double [nValues];
 		idmaxRd = new int [nTimeSteps];
 		idmaxRu = new int [nTimeSteps];
+		for(int e=0, k=0; e<nLoads; e++) {
+			for(int j=0; j<nValues; j++, k++) {
+				totalRd[j] = totalRd[j] + this.rcd[k]+ this.rdd[k];
+				totalRu[j] = totalRu[j] + this.rcu[k]+ this.rdu[k];
+			}
+		}
 		for(int t=0; t<nTimeSteps;t++) {
 			for(int i=0;i<nScenarios;i++) {
-				for(int e=0; e<nLoads; e++) {
-					totalRd[t][i] = totalRd[t][i] + this.rcd[e][t][i]+ this.rdd[e][t][i];
-					totalRu[t][i] = totalRu[t][i] + this.rcu[e][t][i]+ this.rdu[e][t][i];
-				}
-				if (totalRd[t][i] > maxRd) {
-					maxRd = totalRd[t][i];
+				if (totalRd[index(t,i)] > maxRd) {
+					maxRd = totalRd[index(t,i)];
 					idmaxRd[t] = i;
 				}
-				if (totalRu[t][i] > maxRu) {
-					maxRu = totalRu[t][i];
+				if (totalRu[index(t,i)] > maxRu) {
+					maxRu = totalRu[index(t,i)];
 					idmaxRu[t] = i;
 				}
 			}
@@ -349,18 +357,46 @@ public class FlexibleLoadLRProblem extends LRProblem<FlexibleLoadProblem> {
 		maxIter = 1;
 	}
 	
+	@Override
+	public void setLBObjPerSubproblem(int e, double obj) {
+		super.setLBObjPerSubproblem(e, obj);
+		subproblemObj[e] = obj;
+	}
+	
+	/**
+	 * Set the lower bound to the sum of the objectives of the subproblems of this iteration.
+	 * Used by the ParallelLRSolver before adding the cluster terms with addTolowerObj
+	 */
+	void sumLowerObj() {
+		this.lowerObj = 0;
+		for(int e=0; e<nLoads; e++)
+			this.lowerObj += subproblemObj[e];
+	}
+	
+	/**
+	 * Store the bounds of this iteration and move on to the next iteration.
+	 * Used by the ParallelLRSolver
+	 */
+	void nextIteration() {
+		if(upobject != null && iteration < upobject.length) upobject[iteration] = upperObj;
+		if(lowobject != null && iteration < lowobject.length) lowobject[iteration] = lowerObj;
+		if(gap != null && iteration < gap.length && upperObj != 0) gap[iteration] = (upperObj - lowerObj) / Math.abs(upperObj);
+		this.iteration++;
+	}
+	
+	/**
+	 * @return true iff the maximum number of iterations is reached
+	 */
+	boolean isFinished() {
+		return iteration >= maxIter;
+	}
+	
 	protected int[] getDownScenarioOrder(int t, FlexibleLoadProblem p) {
-		Market market = p.getMarket();
-		return market.hasCapacityPayments() ?
-				market.getScenariosOrderedByDownCapacityPayment(t):
-				market.getScenariosOrderedByDownRegulatingPrice(t);
+		return p.getMarket().getScenariosOrderedByDownBidPrice(t);
 	}
 	
 	protected int[] getUpScenarioOrder(int t, FlexibleLoadProblem p) {
-		Market market = p.getMarket();
-		return market.hasCapacityPayments() ?
-				market.getScenariosOrderedByUpCapacityPayment(t):
-				market.getScenariosOrderedByUpRegulatingPrice(t);
+		return p.getMarket().getScenariosOrderedByUpBidPrice(t);
 	}
 	
 	public void printResultsToFile(String info) throws IOException {
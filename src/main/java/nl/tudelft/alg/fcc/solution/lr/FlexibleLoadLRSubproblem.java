@@ -35,6 +35,14 @@ public class FlexibleLoadLRSubproblem extends CompactStochasticModel {
 	public Loads getLoads() {
 		return loads;
 	}
+
+	/**
+	 * The multipliers are defined for every time step, so the subproblem needs all variables
+	 */
+	@Override
+	public boolean isSparse() {
+		return false;
+	}
 	
 	
 	protected void addMultipliersObj() {
@@ -0,0 +1,186 @@
+package nl.tudelft.alg.fcc.solution.lr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.tudelft.alg.MipSolverCore.IMIPSolver;
+import nl.tudelft.alg.MipSolverCore.IModel;
+import nl.tudelft.alg.MipSolverCore.ISolver;
+import nl.tudelft.alg.MipSolverCore.MIP;
+import nl.tudelft.alg.MipSolverCore.SolverException;
+
+/**
+ * Solver for the lagrangian relaxation of the flexible load problem that solves the subproblems concurrently.
+ * Every iteration:
+ * 1) the subproblems (one per load) are solved in parallel, every thread with its own MIP solver instance
+ * 2) the lower bound is determined from the subproblem objectives and the cluster variables
+ * 3) the master problem is solved, which determines the upper bound
+ * 4) the multipliers are updated
+ * The subproblems are solved with the sub time limit and the master problem with the time limit. The iterations stop when
+ * the maximum number of iterations is reached, or when the total time exceeds the time limit (after at least one iteration).
+ * The subproblems only write to their own load in the FlexibleLoadLRProblem,
+ * but building their models and writing back their solutions is serialized, since both write to the shared decision variables
+ * (building fixes the reserves of the first PTUs)
+ */
+public class ParallelLRSolver implements ISolver {
+	/**
+	 * Creates a new MIP solver instance
+	 */
+	public interface SolverFactory {
+		IMIPSolver create() throws SolverException;
+	}
+
+	private final SolverFactory factory;
+	private final int nThreads;
+	private final List<IMIPSolver> solvers;
+	private FlexibleLoadLRModel model;
+	private boolean debug;
+	private double mipGap = -1;
+	private double timeLimit = Double.POSITIVE_INFINITY;
+	private double subTimeLimit = Double.POSITIVE_INFINITY;
+
+	/**
+	 * @param factory creates the MIP solver instances
+	 * @param nThreads the number of subproblems that are solved concurrently
+	 */
+	public ParallelLRSolver(SolverFactory factory, int nThreads) {
+		this.factory = factory;
+		this.nThreads = Math.max(1, nThreads);
+		this.solvers = new ArrayList<>();
+	}
+
+	@Override
+	public void build(IModel model) throws SolverException {
+		if(!(model instanceof FlexibleLoadLRModel))
+			throw new SolverException("The parallel LR solver can only solve a " + FlexibleLoadLRModel.class.getSimpleName());
+		this.model = (FlexibleLoadLRModel) model;
+	}
+
+	@Override
+	public void solve() throws SolverException {
+		FlexibleLoadLRProblem relax = (FlexibleLoadLRProblem) model.getLagrangianProblem();
+		int nSubproblems = model.getNSubproblems();
+		int nWorkers = Math.min(nThreads, nSubproblems);
+		BlockingQueue<IMIPSolver> pool = new ArrayBlockingQueue<>(Math.max(1, nWorkers));
+		for(int i=0; i<Math.max(1, nWorkers); i++)
+			pool.add(getSolver(i));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nWorkers));
+		long start = System.nanoTime();
+		try {
+			while(!relax.isFinished()) {
+				List<Future<Void>> results = new ArrayList<>(nSubproblems);
+				for(int e=0; e<nSubproblems; e++) {
+					final int _e = e;
+					results.add(executor.submit(() -> {
+						IMIPSolver solver = pool.take();
+						try {
+							MIP sub = model.getSubproblemModel(_e, relax);
+							sub.setTimeLimit(subTimeLimit);
+							synchronized(relax) {
+								sub.initialize(solver);
+							}
+							solve(solver, sub);
+							synchronized(relax) {
+								sub.writeSolution();
+							}
+						} finally {
+							pool.put(solver);
+						}
+						return null;
+					}));
+				}
+				for(Future<Void> result : results)
+					waitFor(result);
+				model.finishSubProblems();
+				relax.sumLowerObj();
+				relax.addTolowerObj();
+				MIP master = model.getMasterProblemModel(relax);
+				master.setTimeLimit(timeLimit);
+				master.initialize(solvers.get(0));
+				solve(solvers.get(0), master);
+				master.writeSolution();
+				relax.updateMultipliers();
+				relax.nextIteration();
+				if((System.nanoTime() - start) / 1e9 >= timeLimit) break;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Build and solve one initialized MIP model
+	 */
+	private void solve(IMIPSolver solver, MIP mip) throws SolverException {
+		solver.build(mip);
+		if(mipGap >= 0) solver.setMipGap(mipGap);
+		solver.solve();
+	}
+
+	/**
+	 * Wait for a subproblem to finish, and rethrow its exception if it failed
+	 */
+	private static void waitFor(Future<Void> result) throws SolverException {
+		try {
+			result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolverException("Interrupted while solving the LR subproblems", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof SolverException) throw (SolverException) e.getCause();
+			throw new SolverException("Error while solving an LR subproblem", e);
+		}
+	}
+
+	/**
+	 * Get the i-th solver instance, and create it if it does not exist yet
+	 */
+	private IMIPSolver getSolver(int i) throws SolverException {
+		while(solvers.size() <= i) {
+			IMIPSolver solver = factory.create();
+			solver.setDebug(debug);
+			solvers.add(solver);
+		}
+		return solvers.get(i);
+	}
+
+	@Override
+	public void setDebug(boolean d) {
+		debug = d;
+		for(IMIPSolver solver : solvers)
+			solver.setDebug(d);
+	}
+
+	/**
+	 * The relaxation consists of many models that are built during solving, so there is no single model to save
+	 */
+	@Override
+	public void save(String f) throws SolverException {}
+
+	/**
+	 * @param timeLimit the time limit (in seconds) of the master problem and of all iterations together
+	 * @param subTimeLimit the time limit (in seconds) of every subproblem
+	 */
+	public void setTimeLimit(double timeLimit, double subTimeLimit) {
+		this.timeLimit = timeLimit;
+		this.subTimeLimit = subTimeLimit;
+	}
+
+	@Override
+	public void setMipGap(double g) throws SolverException {
+		mipGap = g;
+	}
+
+	@Override
+	public void dispose() {
+		for(IMIPSolver solver : solvers)
+			solver.dispose();
+		solvers.clear();
+	}
+}
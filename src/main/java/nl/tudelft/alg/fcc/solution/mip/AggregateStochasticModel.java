@@ -0,0 +1,111 @@
+package nl.tudelft.alg.fcc.solution.mip;
+
+import nl.tudelft.alg.MipSolverCore.VarType;
+import nl.tudelft.alg.MipSolverCore.Variable;
+import nl.tudelft.alg.fcc.problem.FlexibleLoadProblem;
+
+/**
+ * Solves the FlexibleLoadProblem using the compact stochastic model, in which all loads place one common price bid.
+ * The acceptance of the common bid is modelled by one binary per time step and scenario, shared by all loads,
+ * while the reserve quantities are still decided per load.
+ * This reduces the number of binaries from nLoads x nTimeSteps x nScenarios to nTimeSteps x nScenarios
+ */
+public class AggregateStochasticModel extends CompactStochasticModel {
+	protected Variable[][] vdc, vuc; // is the common up/down-ward reserve bid called? for every time step, per scenario, binary
+
+	public AggregateStochasticModel(FlexibleLoadProblem p) {
+		super(p);
+		// with one common bid, there is only one cluster of loads per time step
+		if(clusterModel instanceof ClusterModelPerEV)
+			clusterModel = new ClusterModel();
+	}
+
+	@Override
+	protected void initiliazeVars() {
+		super.initiliazeVars();
+		vdc = new Variable[nTimeSteps][];
+		vuc = new Variable[nTimeSteps][];
+		for(int t=0; t<nTimeSteps; t++) {
+			VarType type = t > getConfig().getRelaxedBinaryAfter() ? VarType.BinaryContinuous : VarType.Binary;
+			for(int e=0; e<nLoads; e++) {
+				if(!hasVars(e, t)) continue;
+				if(vdc[t] == null) {
+					vdc[t] = new Variable[nScenarios];
+					vuc[t] = new Variable[nScenarios];
+					for(int i=0; i<nScenarios; i++) {
+						vdc[t][i] = new Variable("vdc_"+t+"_"+i, type);
+						vuc[t][i] = new Variable("vuc_"+t+"_"+i, type);
+					}
+				}
+				// every load refers to the common acceptance variables
+				vd[e][t] = vdc[t];
+				vu[e][t] = vuc[t];
+			}
+		}
+	}
+
+	@Override
+	protected boolean hasCommonAcceptance() {
+		return true;
+	}
+
+	@Override
+	protected void addBidVars() {
+		addLoadVars(vdc, vuc);
+	}
+
+	@Override
+	protected void setPriceBidConstraints() {
+		if (getConfig().quantityOnly()) {
+			fixLoadVariables(1, vdc, vuc);
+		} else {
+			setBidLogic();
+		}
+	}
+
+	@Override
+	protected void setBidLogic() {
+		for(int t=0; t<nTimeSteps; t++) {
+			if(vdc[t] == null) continue;
+			addBidLogic(t, vdc[t], vuc[t], getDownScenarioOrder(t), getUpScenarioOrder(t));
+		}
+	}
+
+	/**
+	 * The common bid is accepted in a scenario if it was accepted for any of the loads
+	 */
+	@Override
+	protected void alignFixedAcceptance(int t, int[][] down, int[][] up) {
+		for(int i=0; i<nScenarios; i++) {
+			int d = 0, u = 0;
+			for(int e=0; e<nLoads; e++) {
+				if(!hasVars(e, t)) continue;
+				d = Math.max(d, down[e][i]);
+				u = Math.max(u, up[e][i]);
+			}
+			for(int e=0; e<nLoads; e++) {
+				down[e][i] = d;
+				up[e][i] = u;
+			}
+		}
+	}
+
+	/**
+	 * Derive the common price bids, and assign them to all loads, also to those that are not available
+	 */
+	@Override
+	protected void writePriceBidSolution() {
+		super.writePriceBidSolution();
+		double[][] pu_bid = problem.getVars().bu;
+		double[][] pd_bid = problem.getVars().bd;
+		for(int t=getMarket().getFixedPTUs(); t<nTimeSteps; t++) {
+			int first = 0;
+			while(first < nLoads && !hasVars(first, t)) first++;
+			if(first == nLoads) continue;
+			for(int e=0; e<nLoads; e++) {
+				pd_bid[e][t] = pd_bid[first][t];
+				pu_bid[e][t] = pu_bid[first][t];
+			}
+		}
+	}
+}
@@ -59,6 +59,7 @@ public class ClusterModel implements ConstraintGenerator {
 		for(int t=0; t<nTimeSteps; t++) {
 			int[] scenarioOrder = mip.getDownScenarioOrder(t);
 			for(int e = 0; e<nLoads; e++) {
+				if(!mip.hasVars(e, t)) continue;
 				for(int i=0; i<nScenarios-1; i++) {
 					left = new LinExp(fd[t][scenarioOrder[i+startix]]);
 					right = new LinExp();
@@ -69,6 +70,7 @@ public class ClusterModel implements ConstraintGenerator {
 				left = new LinExp(fd[t][scenarioOrder[lastix]]);
 				right = mip.getVd(e,t,scenarioOrder[lastix]);
 				mip.addConstraint(left, right, CMP.LARGEREQ, "CountVd0_"+e+"_"+t);
+				if(mip.hasCommonAcceptance()) break; //the constraints of the first load already cover the shared variables
 			}
 		}
 	}
@@ -85,6 +87,7 @@ public class ClusterModel implements ConstraintGenerator {
 		for(int t=0; t<nTimeSteps; t++) {
 			int[] scenarioOrder = mip.getUpScenarioOrder(t);
 			for(int e = 0; e<nLoads; e++) {
+				if(!mip.hasVars(e, t)) continue;
 				for(int i=0; i<nScenarios-1; i++) {
 					left = new LinExp(fu[t][scenarioOrder[i]]);
 					right = new LinExp();
@@ -95,6 +98,7 @@ public class ClusterModel implements ConstraintGenerator {
 				left = new LinExp(fu[t][scenarioOrder[last]]);
 				right = mip.getVu(e,t,scenarioOrder[last]);
 				mip.addConstraint(left, right, CMP.LARGEREQ, "CountVu0_"+e+"_"+t);
+				if(mip.hasCommonAcceptance()) break; //the constraints of the first load already cover the shared variables
 			}
 		}
 	}
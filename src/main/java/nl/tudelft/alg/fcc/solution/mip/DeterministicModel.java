@@ -147,9 +147,7 @@ public class DeterministicModel extends FlexibleLoadMIPcon {
 			return 1000.0;
 		}
 		//Ordered from  high to low
-		int[] scenarioOrder = capacity ?
-				problem.getMarket().getScenariosOrderedByDownCapacityPayment(t):
-				problem.getMarket().getScenariosOrderedByDownRegulatingPrice(t);
+		int[] scenarioOrder = problem.getMarket().getScenariosOrderedByDownBidPrice(t);
 		int scenario = (int) Math.floor((1-chi) * (nScenarios-1));
 		if(capacity)
 			scenario = (int) Math.floor(chi * (nScenarios-1));
@@ -171,9 +169,7 @@ public class DeterministicModel extends FlexibleLoadMIPcon {
 			return -1000;
 		}
 		//Ordered from  high to low
-		int[] scenarioOrder = capacity ?
-				problem.getMarket().getScenariosOrderedByUpCapacityPayment(t):
-				problem.getMarket().getScenariosOrderedByUpRegulatingPrice(t);
+		int[] scenarioOrder = problem.getMarket().getScenariosOrderedByUpBidPrice(t);
 		int scenario = (int) Math.floor((problem.getConfig().getDesiredProbabilityOfAcceptanceUp(t)) * (nScenarios-1));
 		scenario = scenarioOrder[scenario];
 		return capacity ?
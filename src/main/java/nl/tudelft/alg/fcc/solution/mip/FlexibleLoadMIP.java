@@ -1,5 +1,6 @@
 package nl.tudelft.alg.fcc.solution.mip;
 
+import java.util.function.BiPredicate;
 
 import nl.tudelft.alg.MipSolverCore.LinExp;
 import nl.tudelft.alg.MipSolverCore.MIP;
@@ -62,6 +63,158 @@ public abstract class FlexibleLoadMIP extends MIP {
 		return problem;
 	}
 
+	/**
+	 * Returns true iff the per load variables of this model are only created for the time steps in which the load is available.
+	 * The constraints of such (load, time step) pairs are then also skipped, since all their variables would be zero
+	 */
+	public boolean isSparse() {
+		return false;
+	}
+
+	/**
+	 * Returns true iff the model has variables for load e at time step t
+	 */
+	public boolean hasVars(int e, int t) {
+		return !isSparse() || getLoads().isLoadAvailable(e, t);
+	}
+
+	/**
+	 * Create a (load x time step) variable array. If the model is sparse, array[e][t] is null if !hasVars(e,t)
+	 */
+	public Variable[][] newLoadVarArray(String name, VarType type) {
+		int nLoads = getLoads().getNLoads();
+		int nTimeSteps = getMarket().getNPTUs();
+		if(!isSparse())
+			return (Variable[][]) newVarArray(name, type, nLoads, nTimeSteps);
+		Variable[][] result = new Variable[nLoads][nTimeSteps];
+		for(int e=0; e<nLoads; e++)
+			for(int t=0; t<nTimeSteps; t++)
+				if(hasVars(e, t)) result[e][t] = new Variable(name+"_"+e+"_"+t, type);
+		return result;
+	}
+
+	/**
+	 * Create a (load x time step x scenario) variable array. If the model is sparse, array[e][t] is null if !hasVars(e,t)
+	 */
+	public Variable[][][] newLoadVarArray(String name, VarType type, int nScenarios) {
+		return newLoadVarArray(name, type, nScenarios, this::hasVars);
+	}
+
+	/**
+	 * Create a (load x time step x scenario) variable array. If the model is sparse, array[e][t] is null if the pair (e,t) is not active
+	 */
+	public Variable[][][] newLoadVarArray(String name, VarType type, int nScenarios, BiPredicate<Integer, Integer> active) {
+		int nLoads = getLoads().getNLoads();
+		int nTimeSteps = getMarket().getNPTUs();
+		if(!isSparse())
+			return (Variable[][][]) newVarArray(name, type, nLoads, nTimeSteps, nScenarios);
+		Variable[][][] result = new Variable[nLoads][nTimeSteps][];
+		for(int e=0; e<nLoads; e++) {
+			for(int t=0; t<nTimeSteps; t++) {
+				if(!active.test(e, t)) continue;
+				result[e][t] = new Variable[nScenarios];
+				for(int i=0; i<nScenarios; i++)
+					result[e][t][i] = new Variable(name+"_"+e+"_"+t+"_"+i, type);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Add all variables in the (possibly sparse) variable arrays to the model
+	 */
+	protected void addLoadVars(Object... vars) {
+		for(Object v : vars) {
+			if(v instanceof Variable) addVars(v);
+			else if(v instanceof Object[]) addLoadVars((Object[]) v);
+		}
+	}
+
+	/**
+	 * Fix all variables in the (possibly sparse) variable arrays to value
+	 */
+	protected void fixLoadVariables(double value, Object... vars) {
+		for(Object v : vars) {
+			if(v instanceof Variable) fixVariable((Variable) v, value);
+			else if(v instanceof Object[]) fixLoadVariables(value, (Object[]) v);
+		}
+	}
+
+	/**
+	 * Write the solution of a (possibly sparse) (load x time step) variable array to target. Missing variables are written as zero
+	 */
+	protected static void writeLoadVarsBack(Variable[][] vars, double[][] target) {
+		for(int e=0; e<vars.length; e++)
+			for(int t=0; t<vars[e].length; t++)
+				target[e][t] = getSolution(vars[e][t]);
+	}
+
+	/**
+	 * Get the solution of a (possibly sparse) (load x time step x scenario) variable array. Missing variables are zero
+	 */
+	protected static double[][][] writeLoadVarsBack(Variable[][][] vars, int nScenarios) {
+		double[][][] result = new double[vars.length][][];
+		for(int e=0; e<vars.length; e++) {
+			result[e] = new double[vars[e].length][nScenarios];
+			for(int t=0; t<vars[e].length; t++)
+				for(int i=0; i<nScenarios; i++)
+					result[e][t][i] = getSolution(vars, e, t, i);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the solution of a (possibly sparse) (load x time step x scenario) binary variable array. Missing variables are false
+	 */
+	protected static boolean[][][] writeLoadVarsBackBoolean(Variable[][][] vars, int nScenarios) {
+		boolean[][][] result = new boolean[vars.length][][];
+		for(int e=0; e<vars.length; e++) {
+			result[e] = new boolean[vars[e].length][nScenarios];
+			for(int t=0; t<vars[e].length; t++)
+				for(int i=0; i<nScenarios; i++)
+					result[e][t][i] = getSolution(vars, e, t, i) > 0.5;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the linear expression of a variable, or an empty expression if the variable is missing
+	 */
+	protected static LinExp getExp(Variable var) {
+		if(var == null) return new LinExp();
+		return new LinExp(var);
+	}
+
+	/**
+	 * @return the linear expression of variable [e][t][i], or an empty expression if the variable is missing
+	 */
+	protected static LinExp getExp(Variable[][][] vars, int e, int t, int i) {
+		return getExp(getVar(vars, e, t, i));
+	}
+
+	/**
+	 * @return variable [e][t][i], or null if the variable is missing
+	 */
+	protected static Variable getVar(Variable[][][] vars, int e, int t, int i) {
+		if(vars[e][t] == null) return null;
+		return vars[e][t][i];
+	}
+
+	/**
+	 * @return the solution of a variable, or zero if the variable is missing
+	 */
+	protected static double getSolution(Variable var) {
+		if(var == null) return 0;
+		return var.getSolution();
+	}
+
+	/**
+	 * @return the solution of variable [e][t][i], or zero if the variable is missing
+	 */
+	protected static double getSolution(Variable[][][] vars, int e, int t, int i) {
+		return getSolution(getVar(vars, e, t, i));
+	}
+
 	@Override
 	protected void setConstraints() {
 		marketModel.addConstraints(this);
@@ -105,6 +258,7 @@ public abstract class FlexibleLoadMIP extends MIP {
 		Loads loads = getLoads();
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getResTimesteps(); t++) {
+				if(!hasVars(e, t)) continue;
 				//Battery degradation cost
 				double deg = getLoads().getBatteryDegradationCost();
 				double propdown = market.getExpectedDownReserveProportion(t);
@@ -125,6 +279,7 @@ public abstract class FlexibleLoadMIP extends MIP {
 		Loads loads = getLoads();
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getResTimesteps(); t++) {
+				if(!hasVars(e, t)) continue;
 				for(int i=0; i<nScenarios; i++) {
 					double prob = market.getScenarioProbability(i);
 					LinExp rd = getObjResDown(e, t, i)
@@ -25,33 +25,31 @@ public abstract class FlexibleLoadMIPcon extends FlexibleLoadMIP {
 	protected void fixVariables() {
 		super.fixVariables();
 		if(!getConfig().considerV2G())
-			fixVariables(0, pd);
+			fixLoadVariables(0, (Object) pd);
 	}
 	
 	@Override
 	protected void setVars() {
 		super.setVars();
-		addVars(pu_bid, pd_bid, pc, pd);
+		addLoadVars(pu_bid, pd_bid, pc, pd);
 	}
 
 	@Override
 	protected void initiliazeVars() {
 		super.initiliazeVars();
-		int nLoads = getLoads().getNLoads();
-		int nTimeSteps = getMarket().getNPTUs();
-		pc = (Variable[][]) newVarArray("pc", VarType.PositiveContinuous, nLoads, nTimeSteps);
-		pd = (Variable[][]) newVarArray("pd", VarType.PositiveContinuous, nLoads, nTimeSteps);
-		pu_bid = (Variable[][]) newVarArray("pu_bid", VarType.Real, nLoads, nTimeSteps);
-		pd_bid = (Variable[][]) newVarArray("pd_bid", VarType.Real, nLoads, nTimeSteps);
+		pc = newLoadVarArray("pc", VarType.PositiveContinuous);
+		pd = newLoadVarArray("pd", VarType.PositiveContinuous);
+		pu_bid = newLoadVarArray("pu_bid", VarType.Real);
+		pd_bid = newLoadVarArray("pd_bid", VarType.Real);
 	}
 
 	@Override
 	public void writeSolution() throws SolverException {
 		super.writeSolution();
 		DecisionVariables d = problem.getVars();
-		writeVarsBack(pc, d.p);
+		writeLoadVarsBack(pc, d.p);
 		if(getConfig().considerV2G())
-			writeVarsBack(pd, d.dp);
+			writeLoadVarsBack(pd, d.dp);
 		writePriceBidSolution();
 	}
 
@@ -62,12 +60,12 @@ public abstract class FlexibleLoadMIPcon extends FlexibleLoadMIP {
 
 	@Override
 	protected LinExp getPc(int e, int t) {
-		return new LinExp(pc[e][t]);
+		return getExp(pc[e][t]);
 	}
 	@Override
 	protected LinExp getPd(int e, int t) {
 		if(considerV2G())
-			return new LinExp(pd[e][t]);
+			return getExp(pd[e][t]);
 		return new LinExp();
 	}
 
@@ -33,11 +33,13 @@ public class LoadModel implements ConstraintGenerator{
 		if(considerV2G())
 			addDischargeVariable();
 		
-		soc = (Variable[][][]) mip.newVarArray("soc", VarType.Real, 
-				loads.getNLoads(), market.getNTimeSteps(), market.getNScenarios());
+		// in a sparse model, the soc is only tracked from the arrival up to the departure of the load
+		soc = mip.newLoadVarArray("soc", VarType.Real, market.getNScenarios(),
+				(e, t) -> t >= loads.getStartT(e) && t < loads.getEndT(e));
 		surp1 = (Variable[][]) mip.newVarArray("surp1", VarType.PositiveContinuous, loads.getNLoads(), market.getNScenarios());
 		surp2 = (Variable[][]) mip.newVarArray("surp2", VarType.PositiveContinuous, loads.getNLoads(), market.getNScenarios());
-		mip.addVars(soc, surp1, surp2);
+		mip.addLoadVars((Object) soc);
+		mip.addVars(surp1, surp2);
 	}
 
 	protected boolean considerV2G() {
@@ -45,10 +47,8 @@ public class LoadModel implements ConstraintGenerator{
 	}
 	
 	protected void addDischargeVariable() {
-		d = (Variable[][]) mip.newVarArray("d", VarType.Binary,
-				mip.getLoads().getNLoads(),
-				mip.getMarket().getNTimeSteps());
-		mip.addVars(d);
+		d = mip.newLoadVarArray("d", VarType.Binary);
+		mip.addLoadVars((Object) d);
 	}
 	
 	protected LinExp getMaxChargingSpeed(int e, int t) {
@@ -85,6 +85,7 @@ public class LoadModel implements ConstraintGenerator{
 		Market market = mip.getMarket();
 		for(int t=0; t<market.getNPTUs(); t++) {
 			for(int e=0; e<loads.getNLoads(); e++) {
+				if(!mip.hasVars(e, t)) continue;
 				left = mip.getPc(e, t);
 				right = getMaxChargingSpeed(e, t);
 				mip.addConstraint(left, right, CMP.SMALLEREQ, "MAXCHG"+e+"_"+t);
@@ -104,6 +105,7 @@ public class LoadModel implements ConstraintGenerator{
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				//The sum of the planned charge + downward reserves should be lower than the battery charge speed
 				left = mip.getPc(e, t).addLinExp(mip.getRcd(e,t,0));
 				right = getMaxChargingSpeed(e, t);
@@ -123,6 +125,7 @@ public class LoadModel implements ConstraintGenerator{
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				//The provided upward reserves should always be smaller than the planned amount of charge
 				left = mip.getPc(e,t).addLinExp(mip.getRcu(e, t, 0).multiplyBy(-1));
 				right = new LinExp();
@@ -149,11 +152,14 @@ public class LoadModel implements ConstraintGenerator{
 		//TODO change for reserve market dt!=1ptu
 		for(int e=0; e<loads.getNLoads(); e++) {
 			if(loads.getEndT(e) <= 0) continue;
+			int startT = mip.isSparse() ? loads.getStartT(e) : 0;
+			int endT = mip.isSparse() ? Math.min(loads.getEndT(e), market.getNPTUs()) : market.getNPTUs();
+			if(startT >= endT) continue;
 			double eta_c = loads.getChargingEfficiency();
 			double eta_d = 1.0 / loads.getChargingEfficiency();
 			if(!config.considerV2G()) eta_d = 0;
 			for (int i = 0; i < market.getNScenarios(); i++) {
-				for (int t = 0; t < market.getNPTUs(); t++) {
+				for (int t = startT; t < endT; t++) {
 					double epsilonDown = mip.getDownReserveProportion(t, i);
 					double epsilonUp = mip.getUpReserveProportion(t, i);
 					if(!market.hasReserves()) { epsilonDown = 0; epsilonUp = 0;}
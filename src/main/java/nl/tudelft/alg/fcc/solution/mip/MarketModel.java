@@ -1,7 +1,5 @@
 package nl.tudelft.alg.fcc.solution.mip;
 
-import java.util.stream.IntStream;
-
 import nl.tudelft.alg.MipSolverCore.CMP;
 import nl.tudelft.alg.MipSolverCore.LinExp;
 import nl.tudelft.alg.MipSolverCore.VarType;
@@ -51,9 +49,7 @@ public class MarketModel implements ConstraintGenerator {
 		daorimb = (Variable[]) mip.newVarArray("daorimb", VarType.Binary, market.getDATimesteps());
 		mip.addVars(daorimb);
 		for(int t=0; t<market.getNPTUs(); t++) {
-			final int _t = t;
-			double M = IntStream.range(0, loads.getNLoads()).mapToDouble(i -> 
-					loads.isLoadAvailable(i, _t) ? loads.getChargingSpeed(i,_t) : 0).sum();
+			double M = loads.getSummedChargingSpeed(t);
 			left = mip.getPimb(t);
 			right = new LinExp().addNegationTerm(daorimb[market.PTUtoH(t)], -M);
 			mip.addConstraint(left, right, CMP.LARGEREQ, "DAORIMB1_"+t);
@@ -19,6 +19,7 @@ public class StochasticCompactLoadModel extends StochasticLoadModel {
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				int[] scenarioOrder = mip.getDownScenarioOrder(t);
 				double PCMax = loads.getChargingSpeed(e,t);
 				double PDMax = loads.getDischargingSpeed(e,t);
@@ -83,6 +84,7 @@ public class StochasticCompactLoadModel extends StochasticLoadModel {
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				double PCMax = loads.getChargingSpeed(e,t);
 				double PDMax = loads.getDischargingSpeed(e,t);
 				boolean available = loads.isLoadAvailable(e, t); 
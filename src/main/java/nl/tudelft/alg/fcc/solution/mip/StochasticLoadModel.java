@@ -29,6 +29,7 @@ public class StochasticLoadModel extends LoadModel {
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				boolean available = loads.isLoadAvailable(e, t);
 				for(int i=0; i<market.getNScenarios(); i++) {
 					//The sum of the planned charge + downward reserves should be lower than the battery charge speed
@@ -75,6 +76,7 @@ public class StochasticLoadModel extends LoadModel {
 		LinExp left, right;
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getNPTUs(); t++) {
+				if(!mip.hasVars(e, t)) continue;
 				boolean available = loads.isLoadAvailable(e, t);
 				for(int i=0; i<market.getNScenarios(); i++) {
 					//The provided upward reserves should always be smaller than the planned amount of charge
@@ -52,7 +52,7 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 		if(nScenarios >= this.nScenarios) return;
 		PriceScenarioData data = getMarket().getPricedata();
 		if (getConfig().randomScenarios())
-			data = data.getRandomSubset(nScenarios, Utils.random);
+			data = data.getRandomSubset(nScenarios, Utils.getRandom());
 		else if (getConfig().getScenarioSelectionMethod().toLowerCase().equals("mip")){
 			data = ScenarioSelector.getOptimalScenarios(solver, data, nScenarios);
 		} else { // Fast forward select
@@ -63,6 +63,14 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 		this.nScenarios = getMarket().getNScenarios();
 	}
 	
+	/**
+	 * The model is sparse, unless the cluster model ties the variables of every load and time step to the cluster variables
+	 */
+	@Override
+	public boolean isSparse() {
+		return !(clusterModel instanceof ClusterModelPerEV);
+	}
+
 	@Override
 	public void initialize(ISolver solver) {
 		this.solver = solver;
@@ -78,63 +86,75 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 	
 	protected void setPriceBidConstraints() {
 		if (getConfig().quantityOnly()) {
-			fixVariables(1, vd, vu);
+			fixLoadVariables(1, vd, vu);
 		} else {
 			setBidLogic();
 		}
 	}
 	
 	protected int[] getDownScenarioOrder(int t) {
-		return getMarket().hasCapacityPayments() ? getMarket().getScenariosOrderedByDownCapacityPayment(t) : getMarket().getScenariosOrderedByDownRegulatingPrice(t);
+		return getMarket().getScenariosOrderedByDownBidPrice(t);
 	}
 	
 	protected int[] getUpScenarioOrder(int t) {
-		return getMarket().hasCapacityPayments() ? getMarket().getScenariosOrderedByUpCapacityPayment(t) : getMarket().getScenariosOrderedByUpRegulatingPrice(t);
+		return getMarket().getScenariosOrderedByUpBidPrice(t);
 	}
 	
 	protected void setBidLogic() {
-		Market market = problem.getMarket();
-		boolean cap = market.hasCapacityPayments();
 		for(int t=0; t<nTimeSteps; t++) {
-			for(int e = 0; e<nLoads; e++) {			
-				//Ordered from  high to low
-				int[] scenarioOrder = getDownScenarioOrder(t);
-			
-				for(int i=0; i<scenarioOrder.length-1; i++) {
-					// in a scenario a downward bid is only called, if it could also be called in a scenario with a 
-					// higher (lower, if not considering capacity payments) downward capacity price (regulating price)
-					int i0 = scenarioOrder[i];
-					int i1 = scenarioOrder[i+1];
-					LinExp left = new LinExp(vd[e][t][i1]); // smaller price
-					LinExp right = new LinExp(vd[e][t][i0]);  // larger price
-					CMP sign = null;
-					double price0 = cap ? market.getDownCapacityPayment(t, i0) : market.getDownRegulatingPrice(t, i0);
-					double price1 = cap ? market.getDownCapacityPayment(t, i1) : market.getDownRegulatingPrice(t, i1);
-					if (price0 == price1) sign = CMP.EQ;
-					else if (cap) sign = CMP.SMALLEREQ;
-					else sign = CMP.LARGEREQ;
-					constraints.add(new Constraint(left, right, sign, "BLD" + t + "_" + i));
-				}
-				//Ordered from  high to low
-				scenarioOrder = getUpScenarioOrder(t);
-				for(int i=0; i<scenarioOrder.length-1; i++) {
-					// in a scenario a upward bid is only called, if it could also be called in a scenario with a 
-					// lower upward capacity price (regulating price)
-					int i0 = scenarioOrder[i]; //higher price
-					int i1 = scenarioOrder[i + 1]; //smaller price
-					LinExp left = new LinExp(vu[e][t][i1]); // smaller price
-					LinExp right = new LinExp(vu[e][t][i0]); // larger price
-					CMP sign = null;
-					double price0 = cap ? market.getUpCapacityPayment(t, i0) : market.getUpRegulatingPrice(t, i0);
-					double price1 = cap ? market.getUpCapacityPayment(t, i1) : market.getUpRegulatingPrice(t, i1);
-					if (price0 == price1) sign = CMP.EQ;
-					else sign = CMP.SMALLEREQ;
-					constraints.add(new Constraint(left, right, sign, "BLU" + t + "_" + i));
-				}
+			//Ordered from  high to low
+			int[] downScenarioOrder = getDownScenarioOrder(t);
+			int[] upScenarioOrder = getUpScenarioOrder(t);
+			for(int e = 0; e<nLoads; e++) {
+				if(!hasVars(e, t)) continue;
+				addBidLogic(t, vd[e][t], vu[e][t], downScenarioOrder, upScenarioOrder);
 			}
 		}
 	}
 	
+	/**
+	 * Add the bid logic for one set of acceptance variables at time step t
+	 * @param vd the down bid acceptance variable for every scenario
+	 * @param vu the up bid acceptance variable for every scenario
+	 * @param downScenarioOrder the scenarios ordered from high to low by the down bid price
+	 * @param upScenarioOrder the scenarios ordered from high to low by the up bid price
+	 */
+	protected void addBidLogic(int t, Variable[] vd, Variable[] vu, int[] downScenarioOrder, int[] upScenarioOrder) {
+		Market market = problem.getMarket();
+		boolean cap = market.hasCapacityPayments();
+		int[] scenarioOrder = downScenarioOrder;
+		for(int i=0; i<scenarioOrder.length-1; i++) {
+			// in a scenario a downward bid is only called, if it could also be called in a scenario with a 
+			// higher (lower, if not considering capacity payments) downward capacity price (regulating price)
+			int i0 = scenarioOrder[i];
+			int i1 = scenarioOrder[i+1];
+			LinExp left = new LinExp(vd[i1]); // smaller price
+			LinExp right = new LinExp(vd[i0]);  // larger price
+			CMP sign = null;
+			double price0 = cap ? market.getDownCapacityPayment(t, i0) : market.getDownRegulatingPrice(t, i0);
+			double price1 = cap ? market.getDownCapacityPayment(t, i1) : market.getDownRegulatingPrice(t, i1);
+			if (price0 == price1) sign = CMP.EQ;
+			else if (cap) sign = CMP.SMALLEREQ;
+			else sign = CMP.LARGEREQ;
+			constraints.add(new Constraint(left, right, sign, "BLD" + t + "_" + i));
+		}
+		scenarioOrder = upScenarioOrder;
+		for(int i=0; i<scenarioOrder.length-1; i++) {
+			// in a scenario a upward bid is only called, if it could also be called in a scenario with a 
+			// lower upward capacity price (regulating price)
+			int i0 = scenarioOrder[i]; //higher price
+			int i1 = scenarioOrder[i + 1]; //smaller price
+			LinExp left = new LinExp(vu[i1]); // smaller price
+			LinExp right = new LinExp(vu[i0]); // larger price
+			CMP sign = null;
+			double price0 = cap ? market.getUpCapacityPayment(t, i0) : market.getUpRegulatingPrice(t, i0);
+			double price1 = cap ? market.getUpCapacityPayment(t, i1) : market.getUpRegulatingPrice(t, i1);
+			if (price0 == price1) sign = CMP.EQ;
+			else sign = CMP.SMALLEREQ;
+			constraints.add(new Constraint(left, right, sign, "BLU" + t + "_" + i));
+		}
+	}
+	
 	@Override
 	protected void setFirstFixed() {
 		super.setFirstFixed();
@@ -142,9 +162,9 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 		Loads loads = problem.getLoads();
 		DecisionVariables dec = problem.getVars();
 		if(!market.hasReserves()) {
-			fixVariables(0, rcd, rcu, vd, vu);
+			fixLoadVariables(0, rcd, rcu, vd, vu);
 			if(problem.getConfig().considerV2G())
-				fixVariables(0, rdd, rdu);
+				fixLoadVariables(0, rdd, rdu);
 		} else {
 			boolean cap = market.hasCapacityPayments();				
 			for(int t=0; t<market.getFixedPTUs(); t++) {
@@ -155,6 +175,7 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 				int highestUp = upScenarioOrder[0];
 				double highestdownprice = cap ? market.getDownCapacityPayment(t, highestDown) : market.getDownRegulatingPrice(t, highestDown);
 				double highestupprice = cap ? market.getUpCapacityPayment(t, highestUp) : market.getUpRegulatingPrice(t, highestUp);
+				int[][] down = new int[nLoads][nScenarios], up = new int[nLoads][nScenarios];
 				for(int e=0; e<nLoads; e++) {
 					if(dec.rcd[e][t] + dec.rcu[e][t] > loads.getMaximumChargingSpeed(e) - 1e-5) {
 						dec.rcd[e][t] = Math.max(0, loads.getMaximumChargingSpeed(e) - 1e-5 - dec.rcu[e][t]);
@@ -164,20 +185,27 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 						dec.rdd[e][t] = Math.max(0, loads.getMaximumChargingSpeed(e) - 1e-5 - dec.rdu[e][t]);
 						dec.rdu[e][t] = Math.max(0, loads.getMaximumChargingSpeed(e) - 1e-5 - dec.rdd[e][t]);
 					}
+					if(!hasVars(e, t)) continue;
 					for(int i=0; i<nScenarios; i++) {;
 						double downprice = cap ? market.getDownCapacityPayment(t, i) : market.getDownRegulatingPrice(t, i);
 						double upprice = cap ? market.getUpCapacityPayment(t, i) : market.getUpRegulatingPrice(t, i);
-						int down = (!cap && downprice <= dec.bd[e][t]) || (cap && downprice >= dec.bd[e][t]) ? 1 : 0;
-						int up = upprice >= dec.bu[e][t] ? 1 : 0;
-						if(downprice == highestdownprice && dec.rcd[e][t] + dec.rdd[e][t] > 0) down = 1;
-						if(upprice == highestupprice && dec.rcu[e][t] + dec.rdu[e][t] > 0) up = 1;
-						fixVariable(vd[e][t][i], down);
-						fixVariable(vu[e][t][i], up);
-						fixVariable(rcd[e][t][i], down * dec.rcd[e][t]);
-						fixVariable(rcu[e][t][i], up * dec.rcu[e][t]);
+						down[e][i] = (!cap && downprice <= dec.bd[e][t]) || (cap && downprice >= dec.bd[e][t]) ? 1 : 0;
+						up[e][i] = upprice >= dec.bu[e][t] ? 1 : 0;
+						if(downprice == highestdownprice && dec.rcd[e][t] + dec.rdd[e][t] > 0) down[e][i] = 1;
+						if(upprice == highestupprice && dec.rcu[e][t] + dec.rdu[e][t] > 0) up[e][i] = 1;
+					}
+				}
+				alignFixedAcceptance(t, down, up);
+				for(int e=0; e<nLoads; e++) {
+					if(!hasVars(e, t)) continue;
+					for(int i=0; i<nScenarios; i++) {
+						fixVariable(vd[e][t][i], down[e][i]);
+						fixVariable(vu[e][t][i], up[e][i]);
+						fixVariable(rcd[e][t][i], down[e][i] * dec.rcd[e][t]);
+						fixVariable(rcu[e][t][i], up[e][i] * dec.rcu[e][t]);
 						if(problem.getConfig().considerV2G()) {
-							fixVariable(rdu[e][t][i], up * dec.rdu[e][t]);
-							fixVariable(rdd[e][t][i], down * dec.rdd[e][t]);
+							fixVariable(rdu[e][t][i], up[e][i] * dec.rdu[e][t]);
+							fixVariable(rdd[e][t][i], down[e][i] * dec.rdd[e][t]);
 						}
 					}
 				}
@@ -185,12 +213,21 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 		}
 	}
 	
+	/**
+	 * Align the acceptance of the fixed bids of the loads at time step t, before they are fixed.
+	 * By default every load has its own acceptance variables, so nothing needs to be aligned
+	 * @param down the acceptance of the down bid of every load, for every scenario
+	 * @param up the acceptance of the up bid of every load, for every scenario
+	 */
+	protected void alignFixedAcceptance(int t, int[][] down, int[][] up) {}
+
 	@Override
 	protected void addDegObj() {
 		Market market = getMarket();
 		Loads loads = getLoads();
 		for(int e=0; e<loads.getNLoads(); e++) {
 			for(int t=0; t<market.getResTimesteps(); t++) {
+				if(!hasVars(e, t)) continue;
 				//Battery degradation cost
 				double deg = getLoads().getBatteryDegradationCost();
 				for(int i=0; i<market.getNScenarios(); i++) {
@@ -209,25 +246,33 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 	@Override
 	protected void setVars() {
 		super.setVars();
-		addVars(rcd, rcu, vd, vu);
+		addLoadVars(rcd, rcu);
+		addBidVars();
 		if(problem.getConfig().considerV2G())
-			addVars(rdd, rdu);
+			addLoadVars(rdd, rdu);
+	}
+
+	/**
+	 * Add the bid acceptance variables to the model
+	 */
+	protected void addBidVars() {
+		addLoadVars(vd, vu);
 	}
 
 	@Override
 	//need to initialize variables
 	protected void initiliazeVars() {
 		super.initiliazeVars();
-		vd = (Variable[][][]) newVarArray("vd", VarType.Binary, nLoads, nTimeSteps, nScenarios);
-		vu = (Variable[][][]) newVarArray("vu", VarType.Binary, nLoads, nTimeSteps, nScenarios);
-		rcd = (Variable[][][]) newVarArray("rcd", VarType.PositiveContinuous, nLoads, nTimeSteps, nScenarios);
-		rcu = (Variable[][][]) newVarArray("rcu", VarType.PositiveContinuous, nLoads, nTimeSteps, nScenarios);
-		rdd = (Variable[][][]) newVarArray("rdd", VarType.PositiveContinuous, nLoads, nTimeSteps, nScenarios);
-		rdu = (Variable[][][]) newVarArray("rdu", VarType.PositiveContinuous, nLoads, nTimeSteps, nScenarios);
+		vd = newLoadVarArray("vd", VarType.Binary, nScenarios);
+		vu = newLoadVarArray("vu", VarType.Binary, nScenarios);
+		rcd = newLoadVarArray("rcd", VarType.PositiveContinuous, nScenarios);
+		rcu = newLoadVarArray("rcu", VarType.PositiveContinuous, nScenarios);
+		rdd = newLoadVarArray("rdd", VarType.PositiveContinuous, nScenarios);
+		rdu = newLoadVarArray("rdu", VarType.PositiveContinuous, nScenarios);
 		for(int t=0; t < nTimeSteps; t++) {
 			for(int e=0; e < nLoads; e++)
 				for(int i=0; i<nScenarios; i++)
-					if(t > problem.getConfig().getRelaxedBinaryAfter()) {
+					if(t > problem.getConfig().getRelaxedBinaryAfter() && hasVars(e, t)) {
 						vd[e][t][i] = new Variable("vd_"+e+"_"+t+"_"+i, VarType.BinaryContinuous);
 						vu[e][t][i] = new Variable("vu_"+e+"_"+t+"_"+i, VarType.BinaryContinuous);
 					}
@@ -240,13 +285,13 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 		super.writeSolution();
 		DecisionVariables d = problem.getVars();
 		int nTFixed = problem.getMarket().getFixedPTUs();
-		boolean[][][] vd = (boolean[][][]) writeVarsBack(this.vd, boolean.class);
-		boolean[][][] vu = (boolean[][][]) writeVarsBack(this.vu, boolean.class);
-		double[][][] rcd = (double[][][]) writeVarsBack(this.rcd);
-		double[][][] rcu = (double[][][]) writeVarsBack(this.rcu);
+		boolean[][][] vd = writeLoadVarsBackBoolean(this.vd, nScenarios);
+		boolean[][][] vu = writeLoadVarsBackBoolean(this.vu, nScenarios);
+		double[][][] rcd = writeLoadVarsBack(this.rcd, nScenarios);
+		double[][][] rcu = writeLoadVarsBack(this.rcu, nScenarios);
 		if(problem.getConfig().considerV2G()) {
-			double[][][] rdd = (double[][][]) writeVarsBack(this.rdd);
-			double[][][] rdu = (double[][][]) writeVarsBack(this.rdu);
+			double[][][] rdd = writeLoadVarsBack(this.rdd, nScenarios);
+			double[][][] rdu = writeLoadVarsBack(this.rdu, nScenarios);
 			for(int t=nTFixed; t<nTimeSteps; t++) {
 				for(int e=0; e<nLoads; e++) {
 					d.rdu[e][t] = Arrays.stream(rdu[e][t]).max().orElse(0.0);
@@ -296,22 +341,22 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 				
 				double upper, lower;
 				upper = IntStream.range(0, nScenarios).mapToDouble(
-						i -> vd[_e][tx][i].getSolution() > 0.8 ? maxDown : down[i] - epsilon).min().orElse(0.0);
+						i -> getSolution(vd, _e, tx, i) > 0.8 ? maxDown : down[i] - epsilon).min().orElse(0.0);
 				lower = IntStream.range(0, nScenarios).mapToDouble(
-						i -> vd[_e][tx][i].getSolution() > 0.8 ? down[i] : minDown - epsilon).max().orElse(0.0);
+						i -> getSolution(vd, _e, tx, i) > 0.8 ? down[i] : minDown - epsilon).max().orElse(0.0);
 				pd_bid[e][t] = Math.max(lower, upper);
 				if(cap) {
 					upper = IntStream.range(0, nScenarios).mapToDouble(
-							i -> vd[_e][tx][i].getSolution() > 0.8 ? down[i] : maxDown + epsilon).min().orElse(0.0);
+							i -> getSolution(vd, _e, tx, i) > 0.8 ? down[i] : maxDown + epsilon).min().orElse(0.0);
 					lower = IntStream.range(0, nScenarios).mapToDouble(
-							i -> vd[_e][tx][i].getSolution() > 0.8 ? minDown : down[i] + epsilon).max().orElse(0.0);
+							i -> getSolution(vd, _e, tx, i) > 0.8 ? minDown : down[i] + epsilon).max().orElse(0.0);
 					pd_bid[e][t] = Math.max(lower, upper);
 				}
 				
 				upper = IntStream.range(0, nScenarios).mapToDouble(
-						i -> vu[_e][tx][i].getSolution() > 0.8 ? up[i] : maxUp + epsilon).min().orElse(0.0);
+						i -> getSolution(vu, _e, tx, i) > 0.8 ? up[i] : maxUp + epsilon).min().orElse(0.0);
 				lower = IntStream.range(0, nScenarios).mapToDouble(
-						i -> vu[_e][tx][i].getSolution() > 0.8 ? minUp : up[i] + epsilon).max().orElse(0.0);
+						i -> getSolution(vu, _e, tx, i) > 0.8 ? minUp : up[i] + epsilon).max().orElse(0.0);
 				pu_bid[e][t] = Math.max(lower, upper);
 			}
 		}
@@ -329,44 +374,51 @@ public class StochasticModel extends FlexibleLoadMIPcon {
 
 	@Override
 	protected LinExp getRcd(int e, int t, int i) {
-		return new LinExp(rcd[e][t][i]);
+		return getExp(rcd, e, t, i);
 	}
 	@Override
 	protected LinExp getRcu(int e, int t, int i) {
-		return new LinExp(rcu[e][t][i]);
+		return getExp(rcu, e, t, i);
 	}
 	@Override
 	protected LinExp getRdd(int e, int t, int i) {
 		if(considerV2G())
-			return new LinExp(rdd[e][t][i]);
+			return getExp(rdd, e, t, i);
 		return new LinExp();
 	}
 	@Override
 	protected LinExp getRdu(int e, int t, int i) {
 		if(considerV2G())
-			return new LinExp(rdu[e][t][i]);
+			return getExp(rdu, e, t, i);
 		return new LinExp();
 	}
 	protected LinExp getVd(int e, int t, int i) {
-		return new LinExp(vd[e][t][i]);
+		return getExp(vd, e, t, i);
 	}
 	protected LinExp getVu(int e, int t, int i) {
-		return new LinExp(vu[e][t][i]);
+		return getExp(vu, e, t, i);
+	}
+	
+	/**
+	 * @return true if all loads share the acceptance variables vd and vu of a time step
+	 */
+	protected boolean hasCommonAcceptance() {
+		return false;
 	}
 	
 	protected boolean getVds(int e, int t, int i) {
-		return vd[e][t][i].getSolution() > 0.9;
+		return getSolution(vd, e, t, i) > 0.9;
 	}
 	protected boolean getVus(int e, int t, int i) {
-		return vu[e][t][i].getSolution() > 0.9;
+		return getSolution(vu, e, t, i) > 0.9;
 	}
 	protected double getRds(int e, int t, int i) {
-		return rcd[e][t][i].getSolution() + 
-			(considerV2G() ? rdd[e][t][i].getSolution() : 0);
+		return getSolution(rcd, e, t, i) + 
+			(considerV2G() ? getSolution(rdd, e, t, i) : 0);
 	}
 	protected double getRus(int e, int t, int i) {
-		return rcu[e][t][i].getSolution() + 
-				(considerV2G() ? rdu[e][t][i].getSolution() : 0);
+		return getSolution(rcu, e, t, i) + 
+				(considerV2G() ? getSolution(rdu, e, t, i) : 0);
 	}
 	
 	@Override
@@ -4,9 +4,134 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class CSVReader {
 	private BufferedReader br;
+
+	/**
+	 * Handles the rows of a CSV file one by one, see readRows
+	 */
+	public interface RowHandler {
+		/**
+		 * Handle one row
+		 * @param row the index of the row in the file (the header is row 0)
+		 * @param fields the fields of the row. This object is reused for the next row and is only valid during this call
+		 */
+		void handle(int row, Row fields);
+	}
+
+	/**
+	 * The comma separated fields of one line of a CSV file.
+	 * Numeric fields are parsed directly from the characters of the line, without creating a String for every field
+	 */
+	public static class Row {
+		private char[] chars = new char[256];
+		private int length;
+		private int[] starts = new int[16], ends = new int[16];
+		private int size;
+
+		private void clear() {
+			length = 0;
+			size = 0;
+		}
+
+		private void append(char c) {
+			if (length == chars.length) chars = Arrays.copyOf(chars, 2 * length);
+			chars[length++] = c;
+		}
+
+		/**
+		 * Split the characters of the line into fields
+		 */
+		private void split() {
+			int start = 0;
+			for (int i = 0; i <= length; i++) {
+				if (i < length && chars[i] != ',') continue;
+				if (size == starts.length) {
+					starts = Arrays.copyOf(starts, 2 * size);
+					ends = Arrays.copyOf(ends, 2 * size);
+				}
+				starts[size] = start;
+				ends[size++] = i;
+				start = i + 1;
+			}
+		}
+
+		/**
+		 * @return the number of fields in this row
+		 */
+		public int size() {
+			return size;
+		}
+
+		private void check(int field) {
+			if (field < 0 || field >= size) throw new ArrayIndexOutOfBoundsException(field);
+		}
+
+		public boolean isEmpty(int field) {
+			check(field);
+			return starts[field] == ends[field];
+		}
+
+		public String getString(int field) {
+			check(field);
+			return new String(chars, starts[field], ends[field] - starts[field]);
+		}
+
+		/**
+		 * Parse a field as a double, with the same result as Double.parseDouble
+		 */
+		public double getDouble(int field) {
+			check(field);
+			int i = starts[field], end = ends[field];
+			boolean negative = i < end && chars[i] == '-';
+			if (negative || i < end && chars[i] == '+') i++;
+			long mantissa = 0;
+			int digits = 0, decimals = -1;
+			boolean anyDigit = false;
+			for (; i < end; i++) {
+				char c = chars[i];
+				if (c == '.' && decimals < 0) decimals = 0;
+				else if (c >= '0' && c <= '9' && digits < 16) {
+					mantissa = 10 * mantissa + (c - '0');
+					anyDigit = true;
+					if (mantissa > 0) digits++;
+					if (decimals >= 0) decimals++;
+				} else break;
+			}
+			// a value with at most 15 significant digits and 22 decimals is exactly rounded by a single division
+			if (i < end || !anyDigit || digits > 15 || decimals > 22)
+				return Double.parseDouble(getString(field));
+			double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+			return negative ? -value : value;
+		}
+
+		/**
+		 * Parse a field as an int, with the same result as Integer.parseInt
+		 */
+		public int getInt(int field) {
+			check(field);
+			int i = starts[field], end = ends[field];
+			boolean negative = i < end && chars[i] == '-';
+			if (negative || i < end && chars[i] == '+') i++;
+			if (i == end || end - i > 9) return Integer.parseInt(getString(field));
+			int value = 0;
+			for (; i < end; i++) {
+				char c = chars[i];
+				if (c < '0' || c > '9') return Integer.parseInt(getString(field));
+				value = 10 * value + (c - '0');
+			}
+			return negative ? -value : value;
+		}
+	}
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+	}
 	
 	public CSVReader(String csvFile) throws FileNotFoundException {
 		br = new BufferedReader(new FileReader(csvFile));
@@ -33,6 +158,42 @@ public class CSVReader {
 		return br.lines().map(l -> l.split(",", -1)).toArray(String[][]::new);
 	}
 	
+	/**
+	 * Read the file line by line and pass every line to the handler, without keeping the lines in memory.
+	 * Lines are split in the same way as readFile does
+	 * @param handler the handler of the rows
+	 * @throws IOException when the file could not be read
+	 */
+	public void readRows(RowHandler handler) throws IOException {
+		char[] buffer = new char[1 << 16];
+		Row row = new Row();
+		int rowIndex = 0;
+		boolean open = false, skipNewline = false;
+		for (int n; (n = br.read(buffer)) >= 0;) {
+			for (int i = 0; i < n; i++) {
+				char c = buffer[i];
+				if (skipNewline) {
+					skipNewline = false;
+					if (c == '\n') continue;
+				}
+				if (c == '\n' || c == '\r') {
+					row.split();
+					handler.handle(rowIndex++, row);
+					row.clear();
+					open = false;
+					skipNewline = c == '\r';
+				} else {
+					row.append(c);
+					open = true;
+				}
+			}
+		}
+		if (open) {
+			row.split();
+			handler.handle(rowIndex, row);
+		}
+	}
+
 	public void close() {
 		if (br == null) return;
 		try {
@@ -49,4 +210,43 @@ public class CSVReader {
 		return result;
 	}
 
+	/**
+	 * Count the lines of a file, in the same way as readFile and readRows do
+	 * @throws IOException when the file could not be read
+	 */
+	public static int countLines(String csvFile) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+			char[] buffer = new char[1 << 16];
+			int lines = 0;
+			boolean open = false, skipNewline = false;
+			for (int n; (n = reader.read(buffer)) >= 0;) {
+				for (int i = 0; i < n; i++) {
+					char c = buffer[i];
+					if (skipNewline) {
+						skipNewline = false;
+						if (c == '\n') continue;
+					}
+					if (c == '\n' || c == '\r') {
+						lines++;
+						open = false;
+						skipNewline = c == '\r';
+					} else open = true;
+				}
+			}
+			return open ? lines + 1 : lines;
+		}
+	}
+
+	/**
+	 * Read a CSV file row by row, see readRows
+	 */
+	public static void readCsvFile(String csvFile, RowHandler handler) throws IOException {
+		CSVReader reader = new CSVReader(csvFile);
+		try {
+			reader.readRows(handler);
+		} finally {
+			reader.close();
+		}
+	}
+
 }
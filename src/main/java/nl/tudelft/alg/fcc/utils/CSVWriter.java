@@ -5,17 +5,18 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.Arrays;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class CSVWriter {
 private BufferedWriter bw;
+	private final StringBuilder line = new StringBuilder();
 	
 	public CSVWriter(String csvFile) throws IOException {
 		bw = new BufferedWriter(new FileWriter(csvFile));
 	}
 	
 	private Object[] toArray(Object data) {
+		if(data instanceof Object[])
+			return (Object[]) data;
 		if(data.getClass().isArray()) {
 			Object[] ar = new Object[Array.getLength(data)];
 			for(int i=0; i<ar.length; i++)
@@ -26,34 +27,80 @@ private BufferedWriter bw;
 	}
 	
 	private void writeArray(Object data, String[] dimensions, int orgDim, boolean header) throws IOException {
-		Object[] objs = toArray(data);
 		if(dimensions.length > 1) {
-			if(dimensions.length == 2 && header) {
-				Object[] d = IntStream.range(-(orgDim-1), Array.getLength(objs[0])).mapToObj(i -> Integer.toString(i)).toArray();
-				for(int i=0; i<orgDim-1; i++) d[i] = "";
-				if(orgDim >= 2)
-					d[orgDim-2] = dimensions[1];
-				writeArray(d, new String[] {dimensions[1]}, orgDim, false);
-			}
+			Object[] objs = toArray(data);
+			if(dimensions.length == 2 && header)
+				writeHeader(dimensions[1], orgDim, Array.getLength(objs[0]));
 			int i=0;
 			for(Object o: objs) {
-				Object[] out = toArray(o);
-				String[] dim2 = Arrays.copyOfRange(dimensions, 1, dimensions.length);
 				if(dimensions.length == 2) {
-					out = new Object[Array.getLength(o)+1];
-					System.arraycopy(toArray(o), 0, out, 1, Array.getLength(o));
-					out[0] = dimensions[0] +" "+ i;
-				} else if (dimensions.length > 2) {
+					writeLine(dimensions[0] +" "+ i, o);
+				} else {
+					String[] dim2 = Arrays.copyOfRange(dimensions, 1, dimensions.length);
 					dim2[0] = dimensions[0] + " " + i + "," + dim2[0];
+					writeArray(o, dim2, orgDim, header);
 				}
-				writeArray(out, dim2, orgDim, header);
 				header = false;
 				i++;
 			}
 			return;
 		}
-		String line = String.join(",", Arrays.stream(objs).map(o -> o.toString()).collect(Collectors.toList()));
-		bw.write(line.toString());
+		writeLine(null, data);
+	}
+	
+	/**
+	 * Write the column indices, preceded by the (empty) label columns of which the last one has the name of the column dimension
+	 */
+	private void writeHeader(String dimension, int orgDim, int nColumns) throws IOException {
+		line.setLength(0);
+		for(int i=0; i<orgDim-1; i++) {
+			if(i > 0) line.append(',');
+			if(i == orgDim-2) line.append(dimension);
+		}
+		for(int i=0; i<nColumns; i++) {
+			if(i > 0 || orgDim > 1) line.append(',');
+			line.append(i);
+		}
+		bw.append(line);
+		bw.newLine();
+	}
+	
+	/**
+	 * Write one line with an optional label and the values of a (primitive) array, or a single value
+	 */
+	private void writeLine(String label, Object data) throws IOException {
+		line.setLength(0);
+		boolean first = true;
+		if(label != null) {
+			line.append(label);
+			first = false;
+		}
+		if(data instanceof double[]) {
+			for(double d : (double[]) data) {
+				if(!first) line.append(',');
+				line.append(d);
+				first = false;
+			}
+		} else if(data instanceof int[]) {
+			for(int d : (int[]) data) {
+				if(!first) line.append(',');
+				line.append(d);
+				first = false;
+			}
+		} else if(data instanceof boolean[]) {
+			for(boolean d : (boolean[]) data) {
+				if(!first) line.append(',');
+				line.append(d);
+				first = false;
+			}
+		} else {
+			for(Object o : toArray(data)) {
+				if(!first) line.append(',');
+				line.append(o.toString());
+				first = false;
+			}
+		}
+		bw.append(line);
 		bw.newLine();
 	}
 	
@@ -7,72 +7,168 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 /*	Code based on https://stackoverflow.com/questions/8708342/redirect-console-output-to-string-in-java
  	by Manasjyoti Sharma, Bilesh Ganguly */
 
+/**
+ * Captures the console output to a file, per thread.
+ * While any capture is active, System.out is replaced once by a stream that writes everything to the console,
+ * and the output of every thread also to the log sink of that thread. Threads inherit the sink of the thread that created them,
+ * so concurrent simulations can capture their own output. Threads without a sink (e.g. of the common fork join pool)
+ * write to the sink that was opened first.
+ * The files are buffered and only flushed when full or when the capture is stopped
+ */
 public class ConsoleOutputCapturer {
-	private static PrintStream fileoutput;
-	private static PrintStream previous;
-	private static boolean capturing;
+	private static final InheritableThreadLocal<LogSink> threadSink = new InheritableThreadLocal<>();
+	private static final List<LogSink> sinks = new ArrayList<>(); // the active sinks, in order of creation
+	private static volatile LogSink defaultSink;
+	private static PrintStream console;
 
-	public static void redirectToFile(String filename) {
-		if (capturing) { return; }
-		previous = System.out;
+	/**
+	 * Capture the output of this thread (and the threads it creates) to a file, instead of to the sink it inherited.
+	 * Does nothing if this thread already captures its output
+	 * @return the log sink of this thread, or null if the file could not be created
+	 */
+	public static synchronized LogSink redirectToFile(String filename) {
+		LogSink parent = threadSink.get();
+		if (parent != null && parent.owner == Thread.currentThread() && sinks.contains(parent)) return parent;
+		LogSink sink;
 		try {
 			File file = new File(filename);
 			file.getParentFile().mkdirs();
-			fileoutput = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)), true);
+			sink = new LogSink(file, parent);
 		} catch (FileNotFoundException e) {
 			System.out.println("Output file " + filename + " could not be created.");
-			return;
+			return null;
 		}
-		capturing = true;
-		OutputStream outputStreamCombiner = new OutputStreamCombiner(Arrays.asList(previous, fileoutput));
-		PrintStream custom = new PrintStream(outputStreamCombiner);
+		if (console == null) {
+			console = System.out;
+			System.setOut(new PrintStream(new ThreadOutputStream(console), true));
+		}
+		sinks.add(sink);
+		threadSink.set(sink);
+		defaultSink = sinks.get(0);
+		return sink;
+	}
 
-		System.setOut(custom);
+	/**
+	 * Stop capturing the output of this thread and close its file. The thread writes to the sink it inherited again.
+	 * When no captures are left, the original System.out is restored
+	 */
+	public static synchronized void stop() {
+		LogSink sink = threadSink.get();
+		if (sink == null || sink.owner != Thread.currentThread()) return;
+		threadSink.set(sink.parent);
+		if (!sinks.remove(sink)) return;
+		System.out.flush();
+		sink.close();
+		defaultSink = sinks.isEmpty() ? null : sinks.get(0);
+		if (sinks.isEmpty()) {
+			System.setOut(console);
+			console = null;
+		}
 	}
 
-	public static void stop() {
-		if (!capturing) { return; }
+	private static LogSink getSink() {
+		LogSink sink = threadSink.get();
+		return sink != null && !sink.closed ? sink : defaultSink;
+	}
+
+	/**
+	 * A buffered file to which the output of one or more threads is written
+	 */
+	public static class LogSink {
+		private final File file;
+		private final OutputStream out;
+		private final Thread owner; // the thread that opened the sink
+		private final LogSink parent; // the sink the owner wrote to before
+		private boolean closed;
+
+		private LogSink(File file, LogSink parent) throws FileNotFoundException {
+			this.file = file;
+			this.owner = Thread.currentThread();
+			this.parent = parent;
+			this.out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		synchronized void write(int b) {
+			if (closed) return;
+			try {
+				out.write(b);
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+
+		synchronized void write(byte[] b, int off, int len) {
+			if (closed) return;
+			try {
+				out.write(b, off, len);
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
 
-		System.setOut(previous);
-		fileoutput.close();
+		public synchronized void flush() {
+			if (closed) return;
+			try {
+				out.flush();
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+
+		synchronized void close() {
+			if (closed) return;
+			try {
+				out.close();
+			} catch (IOException e) {
+				fail(e);
+			}
+			closed = true;
+		}
 
-		fileoutput = null;
-		previous = null;
-		capturing = false;
+		private void fail(IOException e) {
+			closed = true;
+			if (console != null) console.println("Output file " + file + " could not be written: " + e.getLocalizedMessage());
+		}
 	}
 
-	private static class OutputStreamCombiner extends OutputStream {
-		private List<OutputStream> outputStreams;
+	/**
+	 * Writes to the console and to the log sink of the current thread.
+	 * Flushing only flushes the console, the log sinks are flushed when their buffer is full or when they are closed
+	 */
+	private static class ThreadOutputStream extends OutputStream {
+		private final PrintStream console;
 
-		public OutputStreamCombiner(List<OutputStream> outputStreams) {
-			this.outputStreams = outputStreams;
+		public ThreadOutputStream(PrintStream console) {
+			this.console = console;
 		}
 
 		@Override
 		public void write(int b) throws IOException {
-			for (OutputStream os : outputStreams) {
-				os.write(b);
-			}
+			console.write(b);
+			LogSink sink = getSink();
+			if (sink != null) sink.write(b);
 		}
 
 		@Override
-		public void flush() throws IOException {
-			for (OutputStream os : outputStreams) {
-				os.flush();
-			}
+		public void write(byte[] b, int off, int len) throws IOException {
+			console.write(b, off, len);
+			LogSink sink = getSink();
+			if (sink != null) sink.write(b, off, len);
 		}
 
 		@Override
-		public void close() throws IOException {
-			for (OutputStream os : outputStreams) {
-				os.close();
-			}
+		public void flush() throws IOException {
+			console.flush();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package nl.tudelft.alg.fcc.utils;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes output files on a background thread, so that writing the results does not block the simulation.
+ * The outputs are queued on a bounded queue. When the queue is full, submitting waits until the writer has caught up.
+ * The data of an output should not be changed after it is submitted
+ */
+public class OutputWriter {
+	/**
+	 * An output that writes one or more files
+	 */
+	public interface Output {
+		void write() throws IOException;
+	}
+
+	private static final Output STOP = () -> {};
+	private final BlockingQueue<Output> queue;
+	private final Thread thread;
+	private int pending;
+
+	/**
+	 * @param capacity the maximum number of outputs that can wait to be written
+	 */
+	public OutputWriter(int capacity) {
+		queue = new ArrayBlockingQueue<>(capacity);
+		thread = new Thread(this::run, "output writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void run() {
+		while (true) {
+			Output output;
+			try {
+				output = queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (output == STOP) return;
+			write(output);
+			synchronized (this) {
+				pending--;
+				notifyAll();
+			}
+		}
+	}
+
+	private static void write(Output output) {
+		try {
+			output.write();
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Error in printing results: " + e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Queue an output to be written. If the writer has stopped or the thread is interrupted, the output is written directly
+	 */
+	public void submit(Output output) {
+		if (!thread.isAlive()) {
+			write(output);
+			return;
+		}
+		synchronized (this) {
+			pending++;
+		}
+		try {
+			queue.put(output);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			synchronized (this) {
+				pending--;
+			}
+			write(output);
+		}
+	}
+
+	/**
+	 * Wait until all submitted outputs are written
+	 */
+	public synchronized void flush() {
+		try {
+			while (pending > 0 && thread.isAlive())
+				wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Write all submitted outputs and stop the writer thread
+	 */
+	public void close() {
+		flush();
+		if (!thread.isAlive()) return;
+		try {
+			queue.put(STOP);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
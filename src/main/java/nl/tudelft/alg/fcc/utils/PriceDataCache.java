@@ -0,0 +1,336 @@
+package nl.tudelft.alg.fcc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import nl.tudelft.alg.fcc.model.DAPrice;
+import nl.tudelft.alg.fcc.model.Line;
+import nl.tudelft.alg.fcc.model.PerMinuteData;
+import nl.tudelft.alg.fcc.model.PriceScenarioData;
+
+/**
+ * Binary cache of the price scenario data and the per minute data of a data folder.
+ * The first import of a folder parses the CSV files and writes the result to a binary file in the same folder.
+ * Later imports map that file into memory instead of parsing the CSV files again.
+ * The cache stores the size and CRC32 checksum of the contents of its source files and is rebuilt when any of them changes.
+ * A mapped file stays mapped until the buffer is garbage collected. On Windows a mapped cache file can not be replaced,
+ * so rebuilding it may fail until then; the data is then imported from the CSV files again on the next import.
+ * Cache files are limited to 2 GB (the maximum size of a mapped buffer), larger data is not cached
+ */
+public class PriceDataCache {
+	private static final int MAGIC = 0x46434350; // "FCCP"
+	private static final int VERSION = 3;
+
+	/**
+	 * Import the price scenario data from the binary cache, or from the CSV files when there is no valid cache.
+	 * In the latter case the cache is (re)written
+	 * @param dataFolder the folder with the CSV files
+	 * @param dateFormat the date format of the day-ahead prices
+	 * @param ptuLength the length of a PTU in minutes
+	 * @param capacityPrices whether the capacity prices should be imported
+	 * @return the imported price scenario data
+	 * @throws IOException when the CSV files could not be read
+	 */
+	public static PriceScenarioData importPriceScenarioData(String dataFolder, String dateFormat, int ptuLength, boolean capacityPrices) throws IOException {
+		Path cacheFile = getCacheFile(dataFolder, "prices_" + ptuLength + (capacityPrices ? "_cap" : ""));
+		int[] settings = new int[] { dateFormat.hashCode(), ptuLength, capacityPrices ? 1 : 0 };
+		long[] stamps = getStamps(getSourceFiles(dataFolder, capacityPrices));
+		try {
+			ByteBuffer buffer = open(cacheFile, settings, stamps);
+			if (buffer != null) return readPriceScenarioData(buffer);
+		} catch (BufferUnderflowException e) {
+			System.out.println("The price data cache " + cacheFile + " is incomplete and will be rebuilt.");
+		}
+		DAPrice da = ProblemImporter.importDAPrices(Paths.get(dataFolder, "da.csv").toString(), dateFormat);
+		PriceScenarioData data = ProblemImporter.importPriceScenarioData(da, dataFolder, ptuLength, capacityPrices);
+		write(cacheFile, settings, stamps, getSize(data), buffer -> writePriceScenarioData(buffer, data));
+		return data;
+	}
+
+	/**
+	 * Import the per minute data from the binary cache, or from minute.csv when there is no valid cache.
+	 * In the latter case the cache is (re)written
+	 * @param dataFolder the folder with minute.csv
+	 * @param ptuLength the length of a PTU in minutes
+	 * @return the imported per minute data
+	 * @throws IOException when minute.csv could not be read
+	 */
+	public static PerMinuteData importPerMinuteImbalance(String dataFolder, int ptuLength) throws IOException {
+		Path cacheFile = getCacheFile(dataFolder, "minute_" + ptuLength);
+		int[] settings = new int[] { ptuLength };
+		long[] stamps = getStamps(Collections.singletonList(Paths.get(dataFolder, "minute.csv")));
+		try {
+			ByteBuffer buffer = open(cacheFile, settings, stamps);
+			if (buffer != null) return readPerMinuteData(buffer, ptuLength);
+		} catch (BufferUnderflowException e) {
+			System.out.println("The price data cache " + cacheFile + " is incomplete and will be rebuilt.");
+		}
+		PerMinuteData data = ProblemImporter.importPerMinuteImbalance(dataFolder, ptuLength);
+		write(cacheFile, settings, stamps, 4 + 5 * 8L * data.getNTimeSteps(), buffer -> writePerMinuteData(buffer, data));
+		return data;
+	}
+
+	/**
+	 * @return the location of the cache file with the given name in the data folder
+	 */
+	static Path getCacheFile(String dataFolder, String name) {
+		return Paths.get(dataFolder, name + ".fcccache");
+	}
+
+	/**
+	 * @return the files that are read by ProblemImporter.importPriceScenarioData (and the day-ahead prices), in a fixed order
+	 */
+	static List<Path> getSourceFiles(String dataFolder, boolean capacityPrices) {
+		List<Path> files = new ArrayList<>();
+		files.add(Paths.get(dataFolder, "da.csv"));
+		files.add(Paths.get(dataFolder, "price_down.csv"));
+		files.add(Paths.get(dataFolder, "price_up.csv"));
+		if (capacityPrices) {
+			files.add(Paths.get(dataFolder, "cprice_down.csv"));
+			files.add(Paths.get(dataFolder, "cprice_up.csv"));
+		}
+		files.add(Paths.get(dataFolder, "ptu_down.csv"));
+		files.add(Paths.get(dataFolder, "ptu_up.csv"));
+		if (new File(Paths.get(dataFolder, "ER_up.csv").toString()).exists()) {
+			files.add(Paths.get(dataFolder, "ER_up.csv"));
+			files.add(Paths.get(dataFolder, "ER_down.csv"));
+			files.add(Paths.get(dataFolder, "AP_up.csv"));
+			files.add(Paths.get(dataFolder, "AP_down.csv"));
+		}
+		return files;
+	}
+
+	/**
+	 * Get the size and the CRC32 checksum of the contents of every file
+	 * @return the size and checksum of file i at index 2i and 2i+1
+	 * @throws IOException when any of the files could not be read
+	 */
+	static long[] getStamps(List<Path> files) throws IOException {
+		long[] result = new long[2 * files.size()];
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+		for (int i = 0; i < files.size(); i++) {
+			CRC32 crc = new CRC32();
+			try (FileChannel channel = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+				while (channel.read(buffer) >= 0) {
+					buffer.flip();
+					crc.update(buffer);
+					buffer.clear();
+				}
+				result[2 * i] = channel.size();
+			}
+			result[2 * i + 1] = crc.getValue();
+		}
+		return result;
+	}
+
+	/**
+	 * Map a cache file into memory and check its header
+	 * @return the mapped buffer, positioned after the header,
+	 * or null if there is no cache file or it is not valid for the given settings and source files
+	 */
+	static ByteBuffer open(Path cacheFile, int[] settings, long[] stamps) throws IOException {
+		if (!Files.exists(cacheFile)) return null;
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) return null;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+		if (buffer.getInt() != settings.length) return null;
+		for (int setting : settings)
+			if (buffer.getInt() != setting) return null;
+		if (buffer.getInt() != stamps.length) return null;
+		for (long stamp : stamps)
+			if (buffer.getLong() != stamp) return null;
+		return buffer;
+	}
+
+	/**
+	 * Write a cache file: the header, followed by the data written by the writer. The file is written to a new temporary
+	 * file, which is closed and then atomically moved over the cache file, so readers either see the old or the new file.
+	 * Errors are reported but not thrown, the data is then imported from the CSV files again on the next import
+	 * @param size the number of bytes written by the writer
+	 */
+	static void write(Path cacheFile, int[] settings, long[] stamps, long size, Consumer<ByteBuffer> writer) {
+		try {
+			size += 4 + 4 + 4 + 4L * settings.length + 4 + 8L * stamps.length;
+			if (size > Integer.MAX_VALUE) throw new IOException("the data is larger than 2 GB");
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(settings.length);
+			for (int setting : settings)
+				buffer.putInt(setting);
+			buffer.putInt(stamps.length);
+			for (long stamp : stamps)
+				buffer.putLong(stamp);
+			writer.accept(buffer);
+			buffer.flip();
+			Path tempFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "prices", ".tmp");
+			try {
+				try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+					channel.force(true);
+				}
+				try {
+					Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			System.out.println("Could not write the price data cache " + cacheFile + ": " + e.getLocalizedMessage());
+		}
+	}
+
+	private static PriceScenarioData readPriceScenarioData(ByteBuffer buffer) {
+		int nTimeSteps = buffer.getInt();
+		int nScenarios = buffer.getInt();
+		PriceScenarioData data = new PriceScenarioData(nTimeSteps, nScenarios);
+		for (int t = 0; t < nTimeSteps; t++) {
+			Calendar cal = readDate(buffer);
+			if (cal != null) data.addDateIndex(cal, t);
+		}
+		for (int t = 0; t < nTimeSteps; t++)
+			data.setDAPrice(t, buffer.getDouble());
+		for (int t = 0; t < nTimeSteps; t++) {
+			for (int i = 0; i < nScenarios; i++) {
+				data.setDownPrice(t, i, buffer.getDouble());
+				data.setUpPrice(t, i, buffer.getDouble());
+				data.setCapDownPrice(t, i, buffer.getDouble());
+				data.setCapUpPrice(t, i, buffer.getDouble());
+				data.setImbalancePrice(t, i, buffer.getDouble());
+				data.setProportionDownUsed(t, i, buffer.getDouble());
+				data.setProportionUpUsed(t, i, buffer.getDouble());
+			}
+		}
+		for (int t = 0; t < nTimeSteps; t++) {
+			data.setAPDown(t, readLines(buffer));
+			data.setAPUp(t, readLines(buffer));
+			data.setERDown(t, readLines(buffer));
+			data.setERUp(t, readLines(buffer));
+		}
+		for (int i = 0; i < nScenarios; i++)
+			data.setScenarioProbability(i, 1.0 / nScenarios);
+		data.calcExpected();
+		return data;
+	}
+
+	private static void writePriceScenarioData(ByteBuffer buffer, PriceScenarioData data) {
+		int nTimeSteps = data.getNTimeSteps();
+		int nScenarios = data.getNScenarios();
+		buffer.putInt(nTimeSteps).putInt(nScenarios);
+		for (int t = 0; t < nTimeSteps; t++)
+			writeDate(buffer, data.getDateByIndex(t));
+		for (int t = 0; t < nTimeSteps; t++)
+			buffer.putDouble(data.getDAPrice(t));
+		for (int t = 0; t < nTimeSteps; t++) {
+			for (int i = 0; i < nScenarios; i++) {
+				buffer.putDouble(data.getDownPrice(t, i)).putDouble(data.getUpPrice(t, i))
+						.putDouble(data.getCapDownPrice(t, i)).putDouble(data.getCapUpPrice(t, i))
+						.putDouble(data.getImbalancePrice(t, i))
+						.putDouble(data.getProportionDownUsed(t, i)).putDouble(data.getProportionUpUsed(t, i));
+			}
+		}
+		for (int t = 0; t < nTimeSteps; t++) {
+			writeLines(buffer, data.getAPDown(t));
+			writeLines(buffer, data.getAPUp(t));
+			writeLines(buffer, data.getERDown(t));
+			writeLines(buffer, data.getERUp(t));
+		}
+	}
+
+	private static long getSize(PriceScenarioData data) {
+		int nTimeSteps = data.getNTimeSteps();
+		long size = 4 + 4 + 8L * nTimeSteps * 2 + 8L * nTimeSteps * data.getNScenarios() * 7;
+		for (int t = 0; t < nTimeSteps; t++)
+			size += getSize(data.getAPDown(t)) + getSize(data.getAPUp(t)) + getSize(data.getERDown(t)) + getSize(data.getERUp(t));
+		return size;
+	}
+
+	/**
+	 * Read the per minute data. Only the minute values are stored, the derived prices of every PTU are calculated
+	 * the same way as ProblemImporter.importPerMinuteImbalance does
+	 */
+	private static PerMinuteData readPerMinuteData(ByteBuffer buffer, int ptuLength) {
+		int nTimeSteps = buffer.getInt();
+		PerMinuteData data = new PerMinuteData(nTimeSteps, ptuLength);
+		for (int t = 0; t < nTimeSteps; t++) {
+			Calendar cal = readDate(buffer);
+			if (cal != null) data.addDateIndex(cal, t);
+			data.setDownRegulatingVolume(t, buffer.getDouble());
+			data.setUpRegulatingPrice(t, buffer.getDouble());
+			data.setDownRegulatingPrice(t, buffer.getDouble());
+			data.setMidPrice(t, buffer.getDouble());
+		}
+		for (int t = ptuLength; t < nTimeSteps; t += ptuLength)
+			data.setDerivedPrices(t);
+		return data;
+	}
+
+	private static void writePerMinuteData(ByteBuffer buffer, PerMinuteData data) {
+		buffer.putInt(data.getNTimeSteps());
+		for (int t = 0; t < data.getNTimeSteps(); t++) {
+			writeDate(buffer, data.getDateByIndex(t));
+			buffer.putDouble(data.getDownRegulatingVolume(t)).putDouble(data.getUpRegulatingPrice(t))
+					.putDouble(data.getDownRegulatingPrice(t)).putDouble(data.getMidPrice(t));
+		}
+	}
+
+	/**
+	 * Read a date, stored as its time in ms or as Long.MIN_VALUE for null
+	 */
+	private static Calendar readDate(ByteBuffer buffer) {
+		long time = buffer.getLong();
+		if (time == Long.MIN_VALUE) return null;
+		Calendar cal = Calendar.getInstance();
+		cal.setTimeInMillis(time);
+		return cal;
+	}
+
+	private static void writeDate(ByteBuffer buffer, Calendar cal) {
+		buffer.putLong(cal == null ? Long.MIN_VALUE : cal.getTimeInMillis());
+	}
+
+	/**
+	 * Read an array of lines, stored as its length (or -1 for null) followed by the parameters of every line
+	 */
+	private static Line[] readLines(ByteBuffer buffer) {
+		int n = buffer.getInt();
+		if (n < 0) return null;
+		Line[] lines = new Line[n];
+		for (int i = 0; i < lines.length; i++)
+			lines[i] = new Line(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+		return lines;
+	}
+
+	private static void writeLines(ByteBuffer buffer, Line[] lines) {
+		if (lines == null) {
+			buffer.putInt(-1);
+			return;
+		}
+		buffer.putInt(lines.length);
+		for (Line line : lines)
+			buffer.putDouble(line.r).putDouble(line.b).putDouble(line.lb).putDouble(line.rb);
+	}
+
+	private static long getSize(Line[] lines) {
+		return 4 + (lines == null ? 0 : 4 * 8 * lines.length);
+	}
+}
@@ -2,9 +2,13 @@ package nl.tudelft.alg.fcc.utils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 import nl.tudelft.alg.fcc.model.DAPrice;
 import nl.tudelft.alg.fcc.model.Line;
@@ -14,21 +18,23 @@ import nl.tudelft.alg.fcc.model.PriceScenarioData;
 
 
 public class ProblemImporter {
+	private static final String SCENARIO_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+	private static final String MINUTE_DATE_FORMAT = "MM/dd/yyyy HH:mm";
 	
-	public static DAPrice importDAPrices(String file) throws FileNotFoundException {
+	public static DAPrice importDAPrices(String file, String dateFormat) throws FileNotFoundException {
 		String[][] priceData = CSVReader.readCsvFile(file);
 		DAPrice daPrice = new DAPrice();
 		for (int i = 1; i < priceData.length; i += 1) {
 			String date = priceData[i][0];
 			String time = priceData[i][1];
 			double price = Double.parseDouble(priceData[i][2]);
-			daPrice.addDatePricePair(date + " " + time, price);
+			daPrice.addDatePricePair(date + " " + time, dateFormat, price);
 		}
 		return daPrice;
 	}
 	
 	public static PriceScenarioData importPriceScenarioData(DAPrice da, String dataFolder, int ptuLength, boolean capacityPrices)
-			throws FileNotFoundException {
+			throws IOException {
 		String spreaddownfile = Paths.get(dataFolder, "price_down.csv").toString();
 		String spreadupfile = Paths.get(dataFolder, "price_up.csv").toString();
 		String spreadcapdownfile = Paths.get(dataFolder, "cprice_down.csv").toString();
@@ -39,89 +45,125 @@ public class ProblemImporter {
 		String erdownfile = Paths.get(dataFolder, "ER_down.csv").toString();
 		String apupfile = Paths.get(dataFolder, "AP_up.csv").toString();
 		String apdownfile = Paths.get(dataFolder, "AP_down.csv").toString();
-		String[][] rawpricedata_down = CSVReader.readCsvFile(spreaddownfile);
-		String[][] rawpricedata_up = CSVReader.readCsvFile(spreadupfile);
-		String[][] rawcappricedata_down = capacityPrices ? CSVReader.readCsvFile(spreadcapdownfile) : null;
-		String[][] rawcappricedata_up = capacityPrices ? CSVReader.readCsvFile(spreadcapupfile) : null;
-		String[][] rawptudata_down = CSVReader.readCsvFile(ptudownfile);
-		String[][] rawptudata_up = CSVReader.readCsvFile(ptuupfile);
-		String[][] rawer_up = (new File(erupfile).exists()) ? CSVReader.readCsvFile(erupfile) : null;
-		String[][] rawer_down = (new File(erupfile).exists()) ? CSVReader.readCsvFile(erdownfile) : null;
-		String[][] rawap_up = (new File(erupfile).exists()) ? CSVReader.readCsvFile(apupfile) : null;
-		String[][] rawap_down = (new File(erupfile).exists()) ? CSVReader.readCsvFile(apdownfile) : null;
-		Utils.setDateFormat("yyyy-MM-dd HH:mm:ss");
-		Calendar startDate = Utils.stringToCalender(rawpricedata_down[1][0]);
-		Calendar secondDate = Utils.stringToCalender(rawpricedata_down[2][0]);
-		Calendar endDate = Utils.stringToCalender(rawpricedata_down[rawpricedata_down.length - 1][0]);
+		// the first pass only reads the dates, to determine the number of time steps
+		List<String> rowDates = new ArrayList<>();
+		int[] nColumns = new int[1];
+		CSVReader.readCsvFile(spreaddownfile, (r, row) -> {
+			if (r == 0) nColumns[0] = row.size();
+			else rowDates.add(row.getString(0));
+		});
+		Calendar startDate = Utils.stringToCalender(rowDates.get(0), SCENARIO_DATE_FORMAT);
+		Calendar secondDate = Utils.stringToCalender(rowDates.get(1), SCENARIO_DATE_FORMAT);
+		Calendar endDate = Utils.stringToCalender(rowDates.get(rowDates.size() - 1), SCENARIO_DATE_FORMAT);
 		int mDiff = (int) (ChronoUnit.MINUTES.between(startDate.toInstant(), secondDate.toInstant()));
 		int nTimeSteps = (int) ((ChronoUnit.MINUTES.between(startDate.toInstant(), endDate.toInstant()) + mDiff) / ptuLength);
-		int nScenarios = rawpricedata_down[0].length - 1;
+		int nScenarios = nColumns[0] - 1;
 		PriceScenarioData data = new PriceScenarioData(nTimeSteps, nScenarios);
+		// rowStart[r] is the first time step that is filled with the data of row r, rowStart[r+1] is the first one after
+		int[] rowStart = new int[rowDates.size() + 2];
 		int tx = 0;
 		Calendar nextPTU = startDate;
-		for (int t = 1; t < rawpricedata_down.length; t++) {
-			String date = rawpricedata_down[t][0];
-			Calendar thisPTU = Utils.stringToCalender(date);
+		for (int t = 1; t <= rowDates.size(); t++) {
+			rowStart[t] = tx;
+			Calendar thisPTU = Utils.stringToCalender(rowDates.get(t - 1), SCENARIO_DATE_FORMAT);
 			thisPTU.add(Calendar.MINUTE, mDiff);
 			while (nextPTU.compareTo(thisPTU) < 0) {
 				data.addDateIndex(nextPTU, tx);
 				Calendar cal = data.getDateByIndex(tx);
 				double daprice = da.getPrice(cal);
 				data.setDAPrice(tx, daprice);
-				for (int i = 0; i < nScenarios; i++) {
-					double downprice = Double.parseDouble(rawpricedata_down[t][i + 1]);
-					double upprice = Double.parseDouble(rawpricedata_up[t][i + 1]);
-					data.setDownPrice(tx, i, downprice);
-					data.setUpPrice(tx, i, upprice);
-					if (capacityPrices) {
-						double capdownprice = Double.parseDouble(rawcappricedata_down[t][i + 1]);
-						double capupprice = Double.parseDouble(rawcappricedata_up[t][i + 1]);
-						data.setCapDownPrice(tx, i, capdownprice);
-						data.setCapUpPrice(tx, i, capupprice);
-					}
-					double prop_down = Double.parseDouble(rawptudata_down[t][i + 1]);
-					double prop_up = Double.parseDouble(rawptudata_up[t][i + 1]);
-					data.setProportionDownUsed(tx, i, prop_down);
-					data.setProportionUpUsed(tx, i, prop_up);
-					if (prop_down > prop_up)
-						data.setImbalancePrice(tx, i, downprice);
-					else
-						data.setImbalancePrice(tx, i, upprice);
-
-					if (rawer_up != null) data.setERUp(tx, Line.newLines(rawer_up[t]));
-					if (rawer_down != null) data.setERDown(tx, Line.newLines(rawer_down[t]));
-					if (rawap_up != null) data.setAPUp(tx, Line.newLines(rawap_up[t]));
-					if (rawap_down != null) data.setAPDown(tx, Line.newLines(rawap_down[t]));
-
-				}
 				tx++;
 				nextPTU.add(Calendar.MINUTE, ptuLength);
 			}
 		}
+		rowStart[rowDates.size() + 1] = tx;
+		importScenarioValues(spreaddownfile, rowStart, nScenarios, data::setDownPrice);
+		importScenarioValues(spreadupfile, rowStart, nScenarios, data::setUpPrice);
+		if (capacityPrices) {
+			importScenarioValues(spreadcapdownfile, rowStart, nScenarios, data::setCapDownPrice);
+			importScenarioValues(spreadcapupfile, rowStart, nScenarios, data::setCapUpPrice);
+		}
+		importScenarioValues(ptudownfile, rowStart, nScenarios, data::setProportionDownUsed);
+		importScenarioValues(ptuupfile, rowStart, nScenarios, data::setProportionUpUsed);
+		for (int t = 0; t < tx; t++) {
+			for (int i = 0; i < nScenarios; i++) {
+				if (data.getProportionDownUsed(t, i) > data.getProportionUpUsed(t, i))
+					data.setImbalancePrice(t, i, data.getDownPrice(t, i));
+				else
+					data.setImbalancePrice(t, i, data.getUpPrice(t, i));
+			}
+		}
+		if (new File(erupfile).exists() && nScenarios > 0) {
+			importLines(erupfile, rowStart, data::setERUp);
+			importLines(erdownfile, rowStart, data::setERDown);
+			importLines(apupfile, rowStart, data::setAPUp);
+			importLines(apdownfile, rowStart, data::setAPDown);
+		}
 		for (int i = 0; i < nScenarios; i++) {
 			data.setScenarioProbability(i, 1.0 / nScenarios);
 		}
 		data.calcExpected();
 		return data;
 	}
+
+	/**
+	 * Sets one value of one scenario at one time step
+	 */
+	private interface ScenarioValueSetter {
+		void set(int t, int i, double value);
+	}
+
+	/**
+	 * Read a (time step x scenario) CSV file and pass its values to the setter
+	 * @param file the CSV file, with a header row and the date in the first column
+	 * @param rowStart the time steps of every row, see importPriceScenarioData
+	 * @param nScenarios the number of scenarios
+	 * @param setter the setter of the values
+	 */
+	private static void importScenarioValues(String file, int[] rowStart, int nScenarios, ScenarioValueSetter setter) throws IOException {
+		CSVReader.readCsvFile(file, (r, row) -> {
+			if (r == 0 || r >= rowStart.length - 1) return;
+			for (int t = rowStart[r]; t < rowStart[r + 1]; t++) {
+				for (int i = 0; i < nScenarios; i++)
+					setter.set(t, i, row.getDouble(i + 1));
+			}
+		});
+	}
+
+	/**
+	 * Read a CSV file of piecewise linear functions (see Line.newLines) and pass the lines of every time step to the setter
+	 * @param file the CSV file, with a header row and the date in the first column
+	 * @param rowStart the time steps of every row, see importPriceScenarioData
+	 * @param setter the setter of the lines
+	 */
+	private static void importLines(String file, int[] rowStart, BiConsumer<Integer, Line[]> setter) throws IOException {
+		CSVReader.readCsvFile(file, (r, row) -> {
+			if (r == 0 || r >= rowStart.length - 1) return;
+			for (int t = rowStart[r]; t < rowStart[r + 1]; t++) {
+				Line[] lines = new Line[(row.size() - 1) / 4];
+				for (int i = 0; i < lines.length; i++)
+					lines[i] = new Line(row.getDouble(i * 4 + 1), row.getDouble(i * 4 + 2), row.getDouble(i * 4 + 3), row.getDouble(i * 4 + 4));
+				setter.accept(t, lines);
+			}
+		});
+	}
 	
-	public static PerMinuteData importPerMinuteImbalance(String dataFolder, int ptuLength) throws FileNotFoundException {
+	public static PerMinuteData importPerMinuteImbalance(String dataFolder, int ptuLength) throws IOException {
 		String minuteDataFile = Paths.get(dataFolder, "minute.csv").toString();
-		String[][] rawMinuteData = CSVReader.readCsvFile(minuteDataFile);
-		int nTimeSteps = rawMinuteData.length-1;
-		Utils.setDateFormat("MM/dd/yyyy HH:mm");
+		int nTimeSteps = CSVReader.countLines(minuteDataFile) - 1;
 		PerMinuteData data = new PerMinuteData(nTimeSteps, ptuLength);
-		for(int t=1; t<nTimeSteps; t++) {
-			String date = rawMinuteData[t][0] + " " + rawMinuteData[t][2];
-			data.addDateIndex(date, t-1);
-			double upreg = Integer.parseInt(rawMinuteData[t][5]);
-			double downreg = Integer.parseInt(rawMinuteData[t][6]);
-			double midprice = Double.parseDouble(rawMinuteData[t][11]);
+		CSVReader.readCsvFile(minuteDataFile, (t, row) -> {
+			if (t < 1 || t >= nTimeSteps) return;
+			String date = row.getString(0) + " " + row.getString(2);
+			data.addDateIndex(date, MINUTE_DATE_FORMAT, t-1);
+			double upreg = row.getInt(5);
+			double downreg = row.getInt(6);
+			double midprice = row.getDouble(11);
 			double upprice, downprice;
-			if(rawMinuteData[t][10].isEmpty()) upprice = - Double.MAX_VALUE;
-			else upprice = Double.parseDouble(rawMinuteData[t][10]);
-			if(rawMinuteData[t][12].isEmpty()) downprice = Double.MAX_VALUE;
-			else downprice = Double.parseDouble(rawMinuteData[t][12]);
+			if(row.isEmpty(10)) upprice = - Double.MAX_VALUE;
+			else upprice = row.getDouble(10);
+			if(row.isEmpty(12)) downprice = Double.MAX_VALUE;
+			else downprice = row.getDouble(12);
 			data.setUpRegulatingVolume(t-1, upreg);
 			data.setDownRegulatingVolume(t-1, downreg);
 			data.setUpRegulatingPrice(t-1, upprice);
@@ -129,7 +171,7 @@ public class ProblemImporter {
 			data.setMidPrice(t-1, midprice);
 			if (t % ptuLength == 0)
 				data.setDerivedPrices(t);
-		}
+		});
 		return data;
 	}
 	
@@ -2,9 +2,7 @@ package nl.tudelft.alg.fcc.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import nl.tudelft.alg.MipSolverCore.CMP;
 import nl.tudelft.alg.MipSolverCore.Constraint;
@@ -15,7 +13,6 @@ import nl.tudelft.alg.MipSolverCore.Variable;
 import nl.tudelft.alg.fcc.model.PriceScenarioData;
 
 public class ScenarioSelector extends MIP {
-	public static Map<Integer, Map<Integer, ScenarioSelection>> cache = new HashMap<>();
 	PriceScenarioData data; // the problem that is solved by this model
 	Variable[] x; // the selected scenarios
 	Variable[][] e,f; // the errors on average and standard deviation
@@ -210,14 +207,6 @@ public class ScenarioSelector extends MIP {
 		selection.scenarios = selected.stream().mapToInt(i->i).toArray();
 		selection.e = e;
 		selection.f = f;
-
-		if (!cache.containsKey(data.getNScenarios()))
-			cache.put(data.getNScenarios(), new HashMap<Integer, ScenarioSelection>());
-		cache.get(data.getNScenarios()).put(nScenarios, selection);
-	}
-
-	public static void resetCache() {
-		cache = new HashMap<>();
 	}
 
 
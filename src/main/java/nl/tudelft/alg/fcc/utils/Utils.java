@@ -8,14 +8,21 @@ import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.stream.IntStream;
 
 public class Utils {
-	private static DateFormat dateformat = new SimpleDateFormat("d-M-yyyy hh:mm");
-	public static Random random;
+	private static final ThreadLocal<Map<String, DateFormat>> dateformats = ThreadLocal.withInitial(HashMap::new);
+	private static final ThreadLocal<Random> random = new ThreadLocal<>();
 	
-	public static Calendar stringToCalender(String d) {
+	/**
+	 * Parse a date with the given format. Every thread keeps its own date format object per format,
+	 * so concurrent simulations can parse dates with different formats
+	 */
+	public static Calendar stringToCalender(String d, String format) {
+		DateFormat dateformat = dateformats.get().computeIfAbsent(format, SimpleDateFormat::new);
 		try {
 			Date date = dateformat.parse(d);
 			Calendar c = Calendar.getInstance();
@@ -27,14 +34,6 @@ public class Utils {
 		return null;
 	}
 	
-	public static void setDateFormat(String format) {
-		dateformat = new SimpleDateFormat(format);
-	}
-	
-	public static DateFormat getDateFormat() {
-		return dateformat;
-	}
-	
 	/**
      * Code from method java.util.Collections.shuffle();
 	 * @param random the random generator to use (set to null to use new generator)
@@ -51,10 +50,7 @@ public class Utils {
 	 * @param random the random generator to use (set to null to use new generator)
      */
     public static void shuffle(int[] array) {
-       Random random; 
-   	 if (Utils.random == null) random = new Random();
-       else  random = Utils.random;
-       shuffle(array, random);
+       shuffle(array, getRandom());
     }
 
     private static void swap(int[] array, int i, int j) {
@@ -144,11 +140,20 @@ public class Utils {
 		return out;
 	}
 
-    public static void initRand(int seed) {
-    	if(seed != 0)
-			random = new Random(seed);
-		else
-			random = new Random();
+    /**
+     * Set the random generator of the current thread
+     * @param rand the random generator
+     */
+    public static void setRandom(Random rand) {
+    	random.set(rand);
+    }
+    
+    /**
+     * @return the random generator of the current thread (a new generator if it was not initialized)
+     */
+    public static Random getRandom() {
+    	if (random.get() == null) random.set(new Random());
+    	return random.get();
     }
     
     public static int weightedChoice(Random random, double[] weights) {